@@ -0,0 +1,106 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.bukkit.entity.Entity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event-Pfade des CustomLight-Moduls über dieselben {@link LightEngine}-Methoden wie die Event-Handler:
+ * leuchtendes Item an-/ablegen (updateSources), Item fallen lassen und aufheben, ChunkLoadEvent.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LightEventBenchmark {
+
+    private static final int FIRST_ITEM_ID = 1_000_000;
+
+    @Param({"1", "100", "1000"})
+    public int players;
+
+    private SimulatedServer server;
+    private Entity[] items;
+    private boolean[] glowing;
+    private OrphanLightIndex orphans;
+    private UUID worldUid;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        server = new SimulatedServer(players, 1.0, LightShape.POINT, 42L);
+        glowing = new boolean[players];
+        items = new Entity[players];
+        for (int i = 0; i < players; i++) {
+            items[i] = SimulatedServer.standIn(Entity.class, "item" + i, FIRST_ITEM_ID + i);
+        }
+
+        // Ein paar verwaiste Chunks, damit das ChunkLoadEvent nicht den leeren Schnellpfad nimmt
+        orphans = new OrphanLightIndex();
+        worldUid = UUID.randomUUID();
+        orphans.add(worldUid, BlockKeys.pack(100_000, 64, 100_000));
+    }
+
+    private int next() {
+        int i = cursor;
+        if (++cursor == server.size()) {
+            cursor = 0;
+            server.engine.flush(server.writer);
+        }
+        return i;
+    }
+
+    /**
+     * Wechselt für den nächsten Spieler zwischen leuchtendem und normalem Helm, beim Aufsetzen inklusive erstem Tick
+     */
+    @Benchmark
+    public int helmetChange() {
+        int i = next();
+        glowing[i] = !glowing[i];
+        EmitterState state = server.equip(i, glowing[i]);
+        if (state != null) {
+            server.engine.updateEmitter(state);
+        }
+        return server.engine.emitterCount();
+    }
+
+    /**
+     * Leuchtendes Item wird fallengelassen (EntityAddToWorldEvent) und beim nächsten Mal wieder aufgehoben
+     */
+    @Benchmark
+    public int droppedItem() {
+        int i = next();
+        Entity item = items[i];
+        EmitterState state = server.engine.emitter(item.getEntityId());
+        if (state == null) {
+            server.engine.addDropped(item, SimulatedServer.GLOWING_MODEL, SimulatedServer.LIGHT_LEVEL);
+        } else {
+            server.engine.removeEmitter(state.entityId, true);
+        }
+        return server.engine.emitterCount();
+    }
+
+    /**
+     * ChunkLoadEvent für einen Chunk ohne verwaiste Lichtblöcke (der häufige Fall)
+     */
+    @Benchmark
+    public Object chunkLoad() {
+        int i = next();
+        if (orphans.isEmpty()) return null;
+        return orphans.take(worldUid, i, -i);
+    }
+}
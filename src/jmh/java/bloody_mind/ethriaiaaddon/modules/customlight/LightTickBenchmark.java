@@ -0,0 +1,84 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot Path des CustomLight-Tasks über {@link LightEngine#tick} und {@link LightEngine#updateEmitter} - derselbe Code
+ * wie im Plugin inklusive Bewegungsmessung, Vorhersage, SpatialIndex und Tick-Budget.
+ * moveChance=0 ist der häufigste Fall (alle stehen) und muss unter -prof gc bei 0 Bytes pro Tick liegen
+ * (abgesichert durch LightEngineTest).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LightTickBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int players;
+
+    // Ein Lichtblock wie bisher oder eine Kugel mit Abschwächung (nur der Unterschied wird geschrieben)
+    @Param({"point", "sphere"})
+    public String shape;
+
+    // Anteil der Spieler, die pro Tick einen Block weitergehen
+    @Param({"0", "0.5"})
+    public double moveChance;
+
+    private SimulatedServer server;
+    private EmitterState[] emitters;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        LightShape lightShape = "sphere".equals(shape)
+                ? LightShape.compile("sphere", LightShape.Type.SPHERE, 2, 4, 60)
+                : LightShape.POINT;
+        server = new SimulatedServer(players, moveChance, lightShape, 42L);
+        emitters = new EmitterState[players];
+        for (int i = 0; i < players; i++) {
+            emitters[i] = server.equip(i, true);
+        }
+        // Eingeschwungener Zustand: jeder Spieler hat bereits seine Lichtblöcke
+        for (int tick = 0; tick < SimulatedServer.MAX_LIGHT_BLOCKS * 4; tick++) {
+            tick();
+        }
+    }
+
+    /**
+     * Ein kompletter Licht-Tick über alle Spieler inklusive Schreiben der Blockänderungen
+     */
+    @Benchmark
+    public long tick() {
+        server.engine.tick(server.writer);
+        return server.writer.writes;
+    }
+
+    /**
+     * Ein einzelner Spieler: Positionsabfrage und bei Bewegung das Nachführen seiner Lichtblöcke
+     */
+    @Benchmark
+    public boolean updateEmitter() {
+        int i = cursor;
+        if (++cursor == emitters.length) {
+            cursor = 0;
+            // Nach einer Runde über alle Spieler wird wie im echten Tick geschrieben
+            server.engine.flush(server.writer);
+        }
+        return server.engine.updateEmitter(emitters[i]);
+    }
+}
@@ -0,0 +1,138 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-Ersatz für die Benchmarks: eine Welt und N Spieler mit leuchtendem Helm, die sich per Zufallsweg bewegen.
+ * Die Spieler laufen durch dieselbe {@link LightEngine} wie im Plugin; ersetzt wird nur die Positionsabfrage
+ * ({@link LightEngine.Locator}) und der Writer am Ende der Queue.
+ */
+final class SimulatedServer {
+
+    // Werte aus der Standard-customlight.yml
+    static final int RADIUS = 10;
+    static final int MAX_LIGHT_BLOCKS = 3;
+    static final int LIGHT_LEVEL = 15;
+    static final int GLOWING_MODEL = 10001;
+    static final int PLAIN_MODEL = 20000;
+    private static final int FIRST_ENTITY_ID = 1000;
+
+    final World world = standIn(World.class, "world", 0);
+    final Entity[] players;
+    final ItemLights itemLights = new ItemLights(Map.of(GLOWING_MODEL, LIGHT_LEVEL, 10002, 12, 10003, 8));
+    final CountingWriter writer = new CountingWriter();
+    final LightEngine engine;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final SplittableRandom random;
+    private final double moveChance;
+
+    /**
+     * @param moveChance Anteil der Spieler, die pro Tick einen Block weitergehen
+     */
+    SimulatedServer(int players, double moveChance, LightShape shape, long seed) {
+        this.moveChance = moveChance;
+        this.random = new SplittableRandom(seed);
+        this.players = new Entity[players];
+        x = new double[players];
+        y = new double[players];
+        z = new double[players];
+
+        engine = new LightEngine(this::locate, new LightEngine.EmitterListener() {
+            @Override
+            public void added(EmitterState state) {
+            }
+
+            @Override
+            public void removed(EmitterState state) {
+            }
+        }, new LongAdder(), new LongAdder());
+        // Wie die Standard-customlight.yml, aber ohne Tick-Budget: gemessen wird immer die komplette Arbeit
+        engine.setSettings(new CustomLightSettings(Map.of(GLOWING_MODEL, LIGHT_LEVEL), Map.of(), shape, EmitterSource.HEAD.bit(),
+                RADIUS, 1, true, MAX_LIGHT_BLOCKS, 0, true, 0.4, false));
+
+        for (int i = 0; i < players; i++) {
+            this.players[i] = standIn(Entity.class, "player" + i, FIRST_ENTITY_ID + i);
+            // Verteilt auf 64x64 Chunks, wie auf einem gut besuchten Server (Blockmitte, damit kein Schritt die Kante streift)
+            x[i] = random.nextInt(-512, 512) + 0.5;
+            y[i] = random.nextInt(60, 80);
+            z[i] = random.nextInt(-512, 512) + 0.5;
+        }
+    }
+
+    int size() {
+        return players.length;
+    }
+
+    /**
+     * Setzt Spieler i den Helm auf (glowing) oder ab, über denselben Pfad wie die Inventar-Events
+     */
+    EmitterState equip(int i, boolean glowing) {
+        int[] fingerprints = new int[EmitterSource.COUNT];
+        fingerprints[EmitterSource.HEAD.ordinal()] = glowing ? GLOWING_MODEL : PLAIN_MODEL;
+        return engine.updateSources(players[i], EmitterSource.HEAD.bit(), fingerprints, itemLights);
+    }
+
+    /**
+     * Positionsabfrage: lässt den Spieler eventuell einen Schritt gehen und schreibt seine Position in die Location
+     */
+    private World locate(EmitterState state) {
+        int i = state.entityId - FIRST_ENTITY_ID;
+        if (moveChance > 0 && random.nextDouble() < moveChance) {
+            switch (random.nextInt(4)) {
+                case 0 -> x[i]++;
+                case 1 -> x[i]--;
+                case 2 -> z[i]++;
+                default -> z[i]--;
+            }
+        }
+        state.scratch.setX(x[i]);
+        state.scratch.setY(y[i]);
+        state.scratch.setZ(z[i]);
+        return world;
+    }
+
+    /**
+     * Stand-in für Welt und Entities: nur Identität, Name und Entity-ID, alle anderen Methoden liefern Standardwerte
+     */
+    static <T> T standIn(Class<T> type, String name, int entityId) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString", "getName" -> name;
+                    case "getEntityId" -> entityId;
+                    default -> defaultValue(method.getReturnType());
+                }));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0D;
+        if (type == float.class) return 0F;
+        return null;
+    }
+
+    /**
+     * Zählt Schreibvorgänge statt sie in eine Welt zu schreiben
+     */
+    static final class CountingWriter implements LightWriteQueue.ChunkWriter {
+        long writes;
+
+        @Override
+        public int write(World world, int chunkX, int chunkZ, long[] keys, int[] levels, int count) {
+            writes += count;
+            return count;
+        }
+    }
+}
@@ -1,6 +1,20 @@
 package bloody_mind.ethriaiaaddon;
 
+import bloody_mind.ethriaiaaddon.command.CommandDispatcher;
+import bloody_mind.ethriaiaaddon.config.ConfigSnapshot;
+import bloody_mind.ethriaiaaddon.metrics.ModuleMetrics;
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Abstrakte Basisklasse für alle EthriaIAAddon Module
@@ -9,10 +23,13 @@ public abstract class AddonModule {
 
     protected final EthriaIAAddon plugin;
     protected final String moduleName;
+    protected final ModuleMetrics metrics;
+    private final List<Listener> listeners = new ArrayList<>();
 
     public AddonModule(EthriaIAAddon plugin, String moduleName) {
         this.plugin = plugin;
         this.moduleName = moduleName;
+        this.metrics = plugin.getMetricsManager().forModule(moduleName);
     }
 
     /**
@@ -25,6 +42,27 @@ public abstract class AddonModule {
      */
     public abstract void onDisable();
 
+    /**
+     * Wird nach einem Reload auf dem Main-Thread mit altem und neuem Konfigurationsstand aufgerufen.
+     * Standard: Das Modul wird nur neu gestartet, wenn sich seine Einstellungen geändert haben.
+     */
+    public void onConfigReload(ConfigSnapshot previous, ConfigSnapshot current) {
+        String key = moduleName.toLowerCase();
+        boolean toggled = current.general().isModuleEnabled(key, true) != previous.general().isModuleEnabled(key, true);
+        if (!toggled && !current.moduleChanged(previous, key)) {
+            return;
+        }
+        onDisable();
+        unregisterEvents();
+        onEnable();
+    }
+
+    /**
+     * Registriert die Subcommands des Moduls unter /ethriaiaaddon (Standard: keine)
+     */
+    public void registerCommands(CommandDispatcher.Builder commands) {
+    }
+
     /**
      * Gibt den Namen des Moduls zurück
      */
@@ -32,6 +70,56 @@ public abstract class AddonModule {
         return moduleName;
     }
 
+    /**
+     * Gibt die Metriken des Moduls zurück
+     */
+    public ModuleMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Registriert alle @EventHandler eines Listeners; jeder Aufruf wird gezählt und seine Laufzeit gemessen
+     */
+    protected void registerEvents(Listener listener) {
+        listeners.add(listener);
+        if (!metrics.isEnabled()) {
+            Bukkit.getPluginManager().registerEvents(listener, plugin);
+            return;
+        }
+
+        for (Method method : listener.getClass().getMethods()) {
+            EventHandler handler = method.getAnnotation(EventHandler.class);
+            if (handler == null || method.getParameterCount() != 1
+                    || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                continue;
+            }
+            Class<? extends Event> eventClass = method.getParameterTypes()[0].asSubclass(Event.class);
+            EventExecutor executor = EventExecutor.create(method, eventClass);
+            LongAdder counter = metrics.eventCounter(eventClass.getSimpleName());
+
+            Bukkit.getPluginManager().registerEvent(eventClass, listener, handler.priority(), (target, event) -> {
+                // Bukkit ruft den Executor auch für fremde Unterklassen der HandlerList auf
+                if (!eventClass.isInstance(event)) return;
+                long start = System.nanoTime();
+                try {
+                    executor.execute(target, event);
+                } finally {
+                    metrics.recordEvent(counter, System.nanoTime() - start);
+                }
+            }, plugin, handler.ignoreCancelled());
+        }
+    }
+
+    /**
+     * Entfernt alle über {@link #registerEvents(Listener)} registrierten Listener
+     */
+    public void unregisterEvents() {
+        for (Listener listener : listeners) {
+            HandlerList.unregisterAll(listener);
+        }
+        listeners.clear();
+    }
+
     /**
      * Gibt die Plugin-Instanz zurück
      */
@@ -50,6 +138,6 @@ public abstract class AddonModule {
      * Prüft ob das Modul in der Konfiguration aktiviert ist
      */
     protected boolean isModuleEnabled() {
-        return getConfig().getBoolean("modules." + moduleName.toLowerCase() + ".enabled", true);
+        return plugin.getConfigManager().getSnapshot().general().isModuleEnabled(moduleName, true);
     }
 }
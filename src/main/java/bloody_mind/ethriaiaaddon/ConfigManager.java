@@ -1,5 +1,11 @@
 package bloody_mind.ethriaiaaddon;
 
+import bloody_mind.ethriaiaaddon.config.ConfigSnapshot;
+import bloody_mind.ethriaiaaddon.config.ConfigWatcher;
+import bloody_mind.ethriaiaaddon.config.GeneralSettings;
+import bloody_mind.ethriaiaaddon.config.SettingsBinder;
+import bloody_mind.ethriaiaaddon.modules.customlight.CustomLightSettings;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
@@ -9,24 +15,41 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 
 /**
- * Manager für separate Modul-Konfigurationsdateien
+ * Manager für die Hauptkonfiguration und separate Modul-Konfigurationsdateien.
+ * Alle Dateien liegen gemeinsam in einem {@link ConfigSnapshot}, der bei einem Reload komplett ersetzt wird.
  */
 public class ConfigManager {
 
+    private static final String MAIN_CONFIG = "config.yml";
+
     private final EthriaIAAddon plugin;
-    private final Map<String, FileConfiguration> moduleConfigs;
     private final Map<String, File> moduleConfigFiles;
+    private final Map<String, SettingsBinder<?>> moduleBinders;
+    private volatile ConfigSnapshot snapshot;
+    private ConfigWatcher watcher;
 
     public ConfigManager(EthriaIAAddon plugin) {
         this.plugin = plugin;
-        this.moduleConfigs = new HashMap<>();
-        this.moduleConfigFiles = new HashMap<>();
+        this.moduleConfigFiles = new LinkedHashMap<>();
+        this.moduleBinders = new HashMap<>();
 
         // Initialisiere bekannte Module
         initializeModuleConfigs();
+
+        // Beim Start nie abbrechen: fehlerhafte Dateien werden durch die Standardwerte ersetzt
+        Map<String, FileConfiguration> modules = new LinkedHashMap<>();
+        for (Map.Entry<String, File> entry : moduleConfigFiles.entrySet()) {
+            modules.put(entry.getKey(), loadOrDefaults(entry.getValue()));
+            plugin.getLogger().info("Modul-Konfiguration geladen: " + entry.getValue().getName());
+        }
+        snapshot = bind(loadOrDefaults(new File(plugin.getDataFolder(), MAIN_CONFIG)), modules);
     }
 
     /**
@@ -34,28 +57,84 @@ public class ConfigManager {
      */
     private void initializeModuleConfigs() {
         // CustomLight Modul
-        createModuleConfig("customlight");
+        createModuleConfig("customlight", CustomLightSettings::from);
 
         // Hier können weitere Module hinzugefügt werden:
-        // createModuleConfig("customanvil");
+        // createModuleConfig("customanvil", CustomAnvilSettings::from);
     }
 
     /**
-     * Erstellt oder lädt eine Modul-Konfiguration
+     * Meldet eine Modul-Konfiguration an und erstellt die Datei aus den Ressourcen falls sie nicht existiert
+     *
+     * @param binder wandelt die Datei bei jedem Laden in typisierte Einstellungen um (null = nur FileConfiguration)
      */
-    private void createModuleConfig(String moduleName) {
+    private void createModuleConfig(String moduleName, SettingsBinder<?> binder) {
         String fileName = moduleName.toLowerCase() + ".yml";
         File configFile = new File(plugin.getDataFolder(), fileName);
 
-        // Erstelle die Datei aus den Ressourcen falls sie nicht existiert
         if (!configFile.exists()) {
             plugin.saveResource(fileName, false);
         }
 
-        // Lade die Konfiguration
-        FileConfiguration config = YamlConfiguration.loadConfiguration(configFile);
+        moduleConfigFiles.put(moduleName.toLowerCase(), configFile);
+        if (binder != null) {
+            moduleBinders.put(moduleName.toLowerCase(), binder);
+        }
+    }
+
+    /**
+     * Erzeugt aus den geparsten Dateien einen Snapshot samt typisierter Einstellungen
+     */
+    private ConfigSnapshot bind(FileConfiguration main, Map<String, FileConfiguration> modules) {
+        Map<String, Object> settings = new HashMap<>();
+        for (Map.Entry<String, FileConfiguration> entry : modules.entrySet()) {
+            Object bound = bindModule(entry.getKey(), entry.getValue());
+            if (bound != null) {
+                settings.put(entry.getKey(), bound);
+            }
+        }
+        return new ConfigSnapshot(main, GeneralSettings.from(main), modules, settings);
+    }
+
+    private Object bindModule(String moduleName, FileConfiguration config) {
+        SettingsBinder<?> binder = moduleBinders.get(moduleName);
+        return binder != null ? binder.bind(config, plugin.getLogger()) : null;
+    }
+
+    /**
+     * Parst eine Konfigurationsdatei samt Defaults aus der JAR-Datei.
+     * Darf auf jedem Thread laufen; Syntaxfehler werden mit dem Dateinamen gemeldet.
+     */
+    private FileConfiguration parse(File configFile) throws IOException, InvalidConfigurationException {
+        if (!configFile.exists()) {
+            plugin.saveResource(configFile.getName(), false);
+        }
+
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.load(configFile);
+        } catch (InvalidConfigurationException e) {
+            throw new InvalidConfigurationException(configFile.getName() + ": " + e.getMessage());
+        }
+        applyDefaults(config, configFile.getName());
+        return config;
+    }
+
+    private FileConfiguration loadOrDefaults(File configFile) {
+        try {
+            return parse(configFile);
+        } catch (IOException | InvalidConfigurationException e) {
+            plugin.getLogger().severe("Fehler beim Laden von " + configFile.getName() + ", verwende Standardwerte: " + e.getMessage());
+            YamlConfiguration config = new YamlConfiguration();
+            applyDefaults(config, configFile.getName());
+            return config;
+        }
+    }
 
-        // Lade Defaults aus der JAR-Datei
+    /**
+     * Lade Defaults aus der JAR-Datei
+     */
+    private void applyDefaults(FileConfiguration config, String fileName) {
         InputStream defaultStream = plugin.getResource(fileName);
         if (defaultStream != null) {
             YamlConfiguration defaultConfig = YamlConfiguration.loadConfiguration(
@@ -63,83 +142,154 @@ public class ConfigManager {
             );
             config.setDefaults(defaultConfig);
         }
+    }
 
-        // Speichere in den Maps
-        moduleConfigs.put(moduleName, config);
-        moduleConfigFiles.put(moduleName, configFile);
-
-        plugin.getLogger().info("Modul-Konfiguration geladen: " + fileName);
+    /**
+     * Parst alle Konfigurationsdateien neu, ohne den aktiven Stand zu verändern (für einen Async-Thread gedacht)
+     *
+     * @throws InvalidConfigurationException wenn eine Datei fehlerhaft ist - der alte Stand bleibt dann aktiv
+     */
+    public ConfigSnapshot parseSnapshot() throws IOException, InvalidConfigurationException {
+        FileConfiguration main = parse(new File(plugin.getDataFolder(), MAIN_CONFIG));
+        Map<String, FileConfiguration> modules = new LinkedHashMap<>();
+        for (Map.Entry<String, File> entry : moduleConfigFiles.entrySet()) {
+            modules.put(entry.getKey(), parse(entry.getValue()));
+        }
+        return bind(main, modules);
     }
 
     /**
-     * Gibt die Konfiguration für ein bestimmtes Modul zurück
+     * Parst nur die Datei eines Moduls neu (für einen Async-Thread gedacht). Eingesetzt wird sie erst beim
+     * Übernehmen in den dann aktiven Snapshot, damit ein zwischenzeitlicher Voll-Reload erhalten bleibt.
+     *
+     * @throws InvalidConfigurationException wenn die Datei fehlerhaft ist - der alte Stand bleibt dann aktiv
      */
-    public FileConfiguration getModuleConfig(String moduleName) {
-        return moduleConfigs.get(moduleName.toLowerCase());
+    public UnaryOperator<ConfigSnapshot> parseModule(String moduleName) throws IOException, InvalidConfigurationException {
+        File configFile = moduleConfigFiles.get(moduleName.toLowerCase());
+        if (configFile == null) {
+            return UnaryOperator.identity();
+        }
+        FileConfiguration config = parse(configFile);
+        Object settings = bindModule(moduleName.toLowerCase(), config);
+        return current -> current.withModule(moduleName, config, settings);
     }
 
     /**
-     * Speichert eine Modul-Konfiguration
+     * Wendet eine Änderung auf den aktiven Snapshot an und gibt den bisherigen zurück (Main-Thread)
      */
-    public void saveModuleConfig(String moduleName) {
-        try {
-            FileConfiguration config = moduleConfigs.get(moduleName.toLowerCase());
-            File configFile = moduleConfigFiles.get(moduleName.toLowerCase());
+    public ConfigSnapshot apply(UnaryOperator<ConfigSnapshot> update) {
+        ConfigSnapshot previous = snapshot;
+        snapshot = update.apply(previous);
+        return previous;
+    }
 
-            if (config != null && configFile != null) {
-                config.save(configFile);
-                plugin.getLogger().info("Modul-Konfiguration gespeichert: " + moduleName + ".yml");
+    /**
+     * Startet oder stoppt die Überwachung der Konfigurationsdateien (general.watch-config)
+     */
+    public synchronized void updateWatcher(boolean enabled) {
+        if (!enabled) {
+            if (watcher != null) {
+                watcher.stop();
+                watcher = null;
+                plugin.getLogger().info("Überwachung der Konfigurationsdateien beendet");
             }
+            return;
+        }
+        if (watcher != null) return;
+
+        Set<String> fileNames = new LinkedHashSet<>();
+        fileNames.add(MAIN_CONFIG);
+        for (File configFile : moduleConfigFiles.values()) {
+            fileNames.add(configFile.getName());
+        }
+
+        watcher = new ConfigWatcher(plugin.getDataFolder().toPath(), fileNames, this::onFileChanged, plugin.getLogger());
+        try {
+            watcher.start();
+            plugin.getLogger().info("Konfigurationsdateien werden auf Änderungen überwacht: " + String.join(", ", fileNames));
         } catch (IOException e) {
-            plugin.getLogger().severe("Fehler beim Speichern der Modul-Konfiguration " + moduleName + ": " + e.getMessage());
+            plugin.getLogger().warning("Konfigurationsdateien können nicht überwacht werden: " + e.getMessage());
+            watcher = null;
         }
     }
 
     /**
-     * Lädt eine Modul-Konfiguration neu
+     * Beendet die Dateiüberwachung
      */
-    public void reloadModuleConfig(String moduleName) {
-        String moduleKey = moduleName.toLowerCase();
-        File configFile = moduleConfigFiles.get(moduleKey);
-
-        if (configFile != null && configFile.exists()) {
-            FileConfiguration config = YamlConfiguration.loadConfiguration(configFile);
+    public void shutdown() {
+        updateWatcher(false);
+    }
 
-            // Lade Defaults aus der JAR-Datei
-            InputStream defaultStream = plugin.getResource(moduleKey + ".yml");
-            if (defaultStream != null) {
-                YamlConfiguration defaultConfig = YamlConfiguration.loadConfiguration(
-                    new InputStreamReader(defaultStream, StandardCharsets.UTF_8)
-                );
-                config.setDefaults(defaultConfig);
+    /**
+     * Eine überwachte Datei hat sich inhaltlich geändert (Watcher-Thread): nur diese Datei neu laden,
+     * bei der config.yml alles inklusive Sprachdateien
+     */
+    private void onFileChanged(String fileName) {
+        plugin.getLogger().info("Änderung an " + fileName + " erkannt, lade neu...");
+        if (MAIN_CONFIG.equals(fileName)) {
+            plugin.reloadModules();
+            return;
+        }
+        for (Map.Entry<String, File> entry : moduleConfigFiles.entrySet()) {
+            if (entry.getValue().getName().equals(fileName)) {
+                plugin.reloadConfiguration(entry.getKey());
             }
-
-            moduleConfigs.put(moduleKey, config);
-            plugin.getLogger().info("Modul-Konfiguration neu geladen: " + moduleName + ".yml");
         }
     }
 
     /**
-     * Lädt alle Modul-Konfigurationen neu
+     * Gibt den aktuell aktiven Konfigurationsstand zurück
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gibt die typisierten Einstellungen eines Moduls zurück
+     */
+    public <T> T getModuleSettings(String moduleName, Class<T> type) {
+        return snapshot.settings(moduleName, type);
+    }
+
+    /**
+     * Gibt die Konfiguration für ein bestimmtes Modul zurück
      */
-    public void reloadAllModuleConfigs() {
-        for (String moduleName : moduleConfigs.keySet()) {
-            reloadModuleConfig(moduleName);
+    public FileConfiguration getModuleConfig(String moduleName) {
+        return snapshot.module(moduleName);
+    }
+
+    /**
+     * Speichert eine Modul-Konfiguration
+     */
+    public void saveModuleConfig(String moduleName) {
+        try {
+            FileConfiguration config = snapshot.module(moduleName);
+            File configFile = moduleConfigFiles.get(moduleName.toLowerCase());
+
+            if (config != null && configFile != null) {
+                config.save(configFile);
+                plugin.getLogger().info("Modul-Konfiguration gespeichert: " + moduleName + ".yml");
+            }
+        } catch (IOException e) {
+            plugin.getLogger().severe("Fehler beim Speichern der Modul-Konfiguration " + moduleName + ": " + e.getMessage());
         }
-        plugin.getLogger().info("Alle Modul-Konfigurationen neu geladen");
     }
 
     /**
      * Prüft ob ein Modul in der Hauptkonfiguration aktiviert ist
      */
     public boolean isModuleEnabled(String moduleName) {
-        return plugin.getConfig().getBoolean("modules." + moduleName.toLowerCase() + ".enabled", false);
+        return snapshot.general().isModuleEnabled(moduleName, false);
     }
 
     /**
      * Gibt alle verfügbaren Modul-Konfigurationen zurück
      */
     public Map<String, FileConfiguration> getAllModuleConfigs() {
-        return new HashMap<>(moduleConfigs);
+        Map<String, FileConfiguration> configs = new HashMap<>();
+        for (String moduleName : snapshot.moduleNames()) {
+            configs.put(moduleName, snapshot.module(moduleName));
+        }
+        return configs;
     }
 }
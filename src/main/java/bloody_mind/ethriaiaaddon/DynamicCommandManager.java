@@ -1,107 +1,51 @@
 package bloody_mind.ethriaiaaddon;
 
-import org.bukkit.Bukkit;
-import org.bukkit.command.Command;
-import org.bukkit.command.CommandMap;
-import org.bukkit.command.PluginCommand;
-import org.bukkit.plugin.Plugin;
+import bloody_mind.ethriaiaaddon.command.CommandDispatcher;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import io.papermc.paper.command.brigadier.Commands;
+import io.papermc.paper.plugin.lifecycle.event.types.LifecycleEvents;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.util.Set;
+import java.util.List;
 
 /**
- * Manager für dynamische Command-Registrierung basierend auf config.yml
+ * Registriert den Hauptbefehl und alle Aliases aus der config.yml als Brigadier-Commands
+ * über die Lifecycle-API von Paper (ohne Reflection auf die CommandMap)
  */
 public class DynamicCommandManager {
 
+    private static final String MAIN_COMMAND = "ethriaiaaddon";
+
     private final EthriaIAAddon plugin;
-    private CommandMap commandMap;
 
     public DynamicCommandManager(EthriaIAAddon plugin) {
         this.plugin = plugin;
-        initializeCommandMap();
-    }
-
-    /**
-     * Initialisiert die CommandMap über Reflection
-     */
-    private void initializeCommandMap() {
-        try {
-            Field commandMapField = Bukkit.getServer().getClass().getDeclaredField("commandMap");
-            commandMapField.setAccessible(true);
-            commandMap = (CommandMap) commandMapField.get(Bukkit.getServer());
-        } catch (Exception e) {
-            plugin.getLogger().severe("Fehler beim Zugriff auf CommandMap: " + e.getMessage());
-        }
     }
 
     /**
-     * Registriert alle Aliases aus der config.yml als echte Commands
+     * Meldet die Command-Registrierung an. Paper ruft sie beim Start und bei jedem /minecraft:reload auf,
+     * die Bäume entstehen jeweils aus der aktuellen Befehlstabelle.
      */
-    public void registerDynamicCommands() {
-        if (commandMap == null) {
-            plugin.getLogger().warning("CommandMap nicht verfügbar - Aliases werden nicht registriert");
-            return;
-        }
+    public void registerCommands() {
+        plugin.getLifecycleManager().registerEventHandler(LifecycleEvents.COMMANDS, event -> {
+            Commands commands = event.registrar();
+            CommandDispatcher dispatcher = plugin.getDispatcher();
 
-        // Hole alle Aliases aus der Konfiguration
-        var aliasSection = plugin.getConfig().getConfigurationSection("general.command-aliases");
-        if (aliasSection == null) {
-            plugin.getLogger().warning("Keine command-aliases in der Konfiguration gefunden");
-            return;
-        }
+            commands.register(dispatcher.buildRoot(MAIN_COMMAND), "Main EthriaIAAddon command with module subcommands");
 
-        Set<String> aliases = aliasSection.getKeys(false);
-
-        for (String alias : aliases) {
-            registerCommand(alias);
-        }
-
-        plugin.getLogger().info("Dynamisch registrierte Commands: " + aliases.size());
-    }
-
-    /**
-     * Registriert einen einzelnen Command
-     */
-    private void registerCommand(String name) {
-        try {
-            // Erstelle PluginCommand über Reflection
-            Constructor<PluginCommand> constructor = PluginCommand.class.getDeclaredConstructor(String.class, Plugin.class);
-            constructor.setAccessible(true);
-
-            PluginCommand command = constructor.newInstance(name, plugin);
-            command.setExecutor(plugin);
-            command.setTabCompleter(plugin);
-            command.setPermission("ethriaiaaddon.admin");
-
-            // Registriere den Command
-            commandMap.register(plugin.getName(), command);
-
-            plugin.getLogger().info("Command-Alias registriert: /" + name);
+            List<LiteralCommandNode<CommandSourceStack>> aliases = dispatcher.buildAliases();
+            for (LiteralCommandNode<CommandSourceStack> alias : aliases) {
+                commands.register(alias, "EthriaIAAddon alias");
+            }
 
-        } catch (Exception e) {
-            plugin.getLogger().warning("Fehler beim Registrieren von Command '" + name + "': " + e.getMessage());
-        }
+            plugin.getLogger().info("Brigadier-Commands registriert: /" + MAIN_COMMAND + " und " + aliases.size() + " Aliases");
+        });
     }
 
     /**
-     * Entfernt alle dynamisch registrierten Commands
+     * Geänderte Aliases: Paper baut den Command-Baum nur beim Start und bei /minecraft:reload neu auf
      */
-    public void unregisterDynamicCommands() {
-        if (commandMap == null) return;
-
-        var aliasSection = plugin.getConfig().getConfigurationSection("general.command-aliases");
-        if (aliasSection == null) return;
-
-        Set<String> aliases = aliasSection.getKeys(false);
-
-        for (String alias : aliases) {
-            Command command = commandMap.getCommand(alias);
-            if (command instanceof PluginCommand && ((PluginCommand) command).getPlugin() == plugin) {
-                command.unregister(commandMap);
-                plugin.getLogger().info("Command-Alias entfernt: /" + alias);
-            }
-        }
+    public void aliasesChanged() {
+        plugin.getLogger().info("Command-Aliases geändert - die Änderungen werden nach einem Neustart oder /minecraft:reload aktiv");
     }
 }
@@ -1,15 +1,24 @@
 package bloody_mind.ethriaiaaddon;
 
+import bloody_mind.ethriaiaaddon.command.CommandDispatcher;
+import bloody_mind.ethriaiaaddon.config.ConfigSnapshot;
+import bloody_mind.ethriaiaaddon.config.GeneralSettings;
+import bloody_mind.ethriaiaaddon.metrics.MetricsSnapshot;
+import bloody_mind.ethriaiaaddon.metrics.ModuleMetrics;
 import bloody_mind.ethriaiaaddon.modules.CustomLightModule;
-import org.bukkit.command.Command;
+import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
-import org.bukkit.command.TabCompleter;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.UnaryOperator;
 import java.util.logging.Level;
 
 /**
@@ -20,13 +29,18 @@ import java.util.logging.Level;
  * - CustomAnvil: Änderung von Item-ModelIDs über Custom-Amboss
  * - Weitere Module...
  */
-public class EthriaIAAddon extends JavaPlugin implements TabCompleter {
+public class EthriaIAAddon extends JavaPlugin {
 
     private List<AddonModule> modules;
     private static EthriaIAAddon instance;
     private LanguageManager languageManager;
     private ConfigManager configManager;
     private DynamicCommandManager dynamicCommandManager;
+    private MetricsManager metricsManager;
+    // Befehlstabelle, wird bei geänderten Aliases komplett ersetzt
+    private volatile CommandDispatcher dispatcher;
+    // Reloads werden nacheinander geparst und damit in derselben Reihenfolge übernommen
+    private ExecutorService reloadExecutor;
 
     @Override
     public void onEnable() {
@@ -37,23 +51,35 @@ public class EthriaIAAddon extends JavaPlugin implements TabCompleter {
         // Erstelle Standard-Konfiguration falls sie nicht existiert
         saveDefaultConfig();
 
+        // Initialisiere Konfigurations-Manager (lädt config.yml und alle Modul-Dateien)
+        configManager = new ConfigManager(this);
+        reloadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "EthriaIAAddon-Reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+
         // Initialisiere Sprachsystem
         languageManager = new LanguageManager(this);
 
-        // Initialisiere Konfigurations-Manager
-        configManager = new ConfigManager(this);
-
         // Initialisiere dynamischen Command-Manager
         dynamicCommandManager = new DynamicCommandManager(this);
 
+        // Initialisiere Metriken (vor den Modulen, die sich dort eintragen)
+        metricsManager = new MetricsManager(this);
+
         // Module initialisieren
         initializeModules();
 
         // Module starten
         enableModules();
 
-        // Dynamische Commands registrieren (nach LanguageManager-Initialisierung)
-        dynamicCommandManager.registerDynamicCommands();
+        // Befehlstabelle aufbauen; Paper fragt den Brigadier-Baum daraus beim Registrieren der Commands ab
+        buildDispatcher(configManager.getSnapshot().general());
+        dynamicCommandManager.registerCommands();
+
+        // Geänderte Konfigurationsdateien automatisch übernehmen
+        configManager.updateWatcher(configManager.getSnapshot().general().watchConfig());
 
         getLogger().info("EthriaIAAddon Framework erfolgreich geladen mit " + modules.size() + " Modulen!");
     }
@@ -62,14 +88,21 @@ public class EthriaIAAddon extends JavaPlugin implements TabCompleter {
     public void onDisable() {
         getLogger().info("Deaktiviere EthriaIAAddon Module...");
 
-        // Dynamische Commands entfernen
-        if (dynamicCommandManager != null) {
-            dynamicCommandManager.unregisterDynamicCommands();
+        if (configManager != null) {
+            configManager.shutdown();
+        }
+        if (reloadExecutor != null) {
+            reloadExecutor.shutdownNow();
+            reloadExecutor = null;
         }
 
         // Module sauber deaktivieren
         disableModules();
 
+        if (metricsManager != null) {
+            metricsManager.shutdown();
+        }
+
         getLogger().info("EthriaIAAddon Framework deaktiviert!");
         instance = null;
     }
@@ -110,6 +143,7 @@ public class EthriaIAAddon extends JavaPlugin implements TabCompleter {
             for (AddonModule module : modules) {
                 try {
                     module.onDisable();
+                    module.unregisterEvents();
                     getLogger().info("Modul '" + module.getName() + "' deaktiviert");
                 } catch (Exception e) {
                     getLogger().log(Level.SEVERE, "Fehler beim Deaktivieren von Modul '" + module.getName() + "':", e);
@@ -119,32 +153,96 @@ public class EthriaIAAddon extends JavaPlugin implements TabCompleter {
     }
     
     /**
-     * Lädt alle Module neu
+     * Lädt alle Konfigurationen und Sprachdateien neu
      */
-    public void reloadModules() {
+    public CompletableFuture<Boolean> reloadModules() {
         getLogger().info("Lade alle Module neu...");
-        
-        // Alle Module deaktivieren
-        disableModules();
-        
-        // Konfigurationen neu laden
-        reloadConfig();
-        
-        // Sprachsystem neu laden
-        languageManager.reload();
+        return reloadConfiguration(null);
+    }
 
-        // Modul-Konfigurationen neu laden
-        configManager.reloadAllModuleConfigs();
+    /**
+     * Lädt die Konfiguration neu: Dateien werden asynchron geparst und geprüft, danach wird der neue Stand
+     * auf dem Main-Thread übernommen. Module erhalten die Änderungen über onConfigReload statt eines Neustarts.
+     * Mehrere Reloads laufen nacheinander; ein Modul-Reload wird auf den dann aktiven Stand angewendet.
+     *
+     * @param moduleName nur die Datei dieses Moduls neu laden, oder null für alle Dateien und Sprachen
+     * @return true wenn der neue Stand übernommen wurde, false wenn eine Datei fehlerhaft ist
+     */
+    public CompletableFuture<Boolean> reloadConfiguration(String moduleName) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        long start = System.nanoTime();
 
-        // Dynamische Commands neu registrieren
-        dynamicCommandManager.unregisterDynamicCommands();
-        dynamicCommandManager.registerDynamicCommands();
+        reloadExecutor.execute(() -> {
+            UnaryOperator<ConfigSnapshot> update;
+            LanguageManager.Languages languages = null;
+            try {
+                if (moduleName == null) {
+                    ConfigSnapshot parsed = configManager.parseSnapshot();
+                    // Sprachdateien ebenfalls abseits des Main-Threads kompilieren, übernommen mit dem Snapshot
+                    languages = languageManager.prepare(parsed.general());
+                    update = current -> parsed;
+                } else {
+                    update = configManager.parseModule(moduleName);
+                }
+            } catch (Exception e) {
+                getLogger().warning("Reload abgebrochen, die bisherige Konfiguration bleibt aktiv: " + e.getMessage());
+                result.complete(false);
+                return;
+            }
 
-        // Module neu initialisieren und starten
-        initializeModules();
-        enableModules();
-        
-        getLogger().info("Alle Module wurden neu geladen!");
+            LanguageManager.Languages preparedLanguages = languages;
+            Bukkit.getGlobalRegionScheduler().execute(this, () -> {
+                applyConfiguration(update, preparedLanguages);
+                metricsManager.recordReload(System.nanoTime() - start);
+                result.complete(true);
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Übernimmt einen geprüften Konfigurationsstand und meldet die Änderungen an Framework und Module (Main-Thread)
+     *
+     * @param languages neu kompilierte Sprachen (null wenn sie unverändert bleiben)
+     */
+    private void applyConfiguration(UnaryOperator<ConfigSnapshot> update, LanguageManager.Languages languages) {
+        ConfigSnapshot previous = configManager.apply(update);
+        ConfigSnapshot next = configManager.getSnapshot();
+        if (languages != null) {
+            languageManager.apply(languages);
+        }
+
+        if (next.general().watchConfig() != previous.general().watchConfig()) {
+            configManager.updateWatcher(next.general().watchConfig());
+        }
+
+        if (!next.general().metrics().equals(previous.general().metrics())) {
+            metricsManager.reload();
+        }
+
+        if (!next.general().commandAliases().equals(previous.general().commandAliases())) {
+            buildDispatcher(next.general());
+            dynamicCommandManager.aliasesChanged();
+        }
+
+        for (AddonModule module : modules) {
+            try {
+                module.onConfigReload(previous, next);
+            } catch (Exception e) {
+                getLogger().log(Level.SEVERE, "Fehler beim Übernehmen der Konfiguration in Modul '" + module.getName() + "':", e);
+            }
+        }
+    }
+
+    /**
+     * Die Hauptkonfiguration kommt aus dem aktuellen Snapshot, damit ein Reload nie auf dem Main-Thread parst
+     */
+    @Override
+    public FileConfiguration getConfig() {
+        if (configManager == null) {
+            return super.getConfig();
+        }
+        return configManager.getSnapshot().main();
     }
     
     /**
@@ -168,6 +266,13 @@ public class EthriaIAAddon extends JavaPlugin implements TabCompleter {
         return configManager;
     }
 
+    /**
+     * Gibt den MetricsManager zurück
+     */
+    public MetricsManager getMetricsManager() {
+        return metricsManager;
+    }
+
     /**
      * Gibt alle geladenen Module zurück
      */
@@ -188,59 +293,54 @@ public class EthriaIAAddon extends JavaPlugin implements TabCompleter {
         return null;
     }
 
-    @Override
-    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
-        // Einheitliche Permission-Prüfung für alle Commands (Hauptbefehl und Aliases)
-        if (!sender.hasPermission("ethriaiaaddon.admin")) {
-            languageManager.sendMessage(sender, "general.no-permission");
-            return true;
+    /**
+     * Baut die Befehlstabelle für den aktuellen Konfigurationsstand auf
+     */
+    private void buildDispatcher(GeneralSettings settings) {
+        CommandDispatcher.Builder builder = CommandDispatcher.builder("ethriaiaaddon.admin",
+                (sender, args) -> {
+                    showMainHelp(sender);
+                    return true;
+                },
+                (sender, args) -> {
+                    languageManager.sendMessage(sender, "general.unknown-command", "command", args[0]);
+                    languageManager.sendMessage(sender, "general.available-commands", "commands", "help, reload, stats, customlight");
+                    return true;
+                });
+
+        builder.register("help", null, (sender, args) -> {
+                    showMainHelp(sender);
+                    return true;
+                })
+                .register("reload", null, (sender, args) -> {
+                    reloadModules().thenAccept(success -> {
+                        if (success) {
+                            languageManager.sendMessage(sender, "general.config-reloaded");
+                            getLogger().info("GLOBAL RELOAD ausgeführt von: " + sender.getName() + " (alle Configs und Sprachdateien)");
+                        } else {
+                            languageManager.sendMessage(sender, "general.config-reload-failed");
+                        }
+                    });
+                    return true;
+                })
+                .register("stats", null, (sender, args) -> {
+                    showStats(sender);
+                    return true;
+                });
+
+        // Jedes Modul hängt seinen eigenen Teilbaum an
+        for (AddonModule module : modules) {
+            module.registerCommands(builder);
         }
 
-        String subCommand = null;
-        String[] effectiveArgs = args;
-        
-        // Prüfe ob es ein Alias aus der config.yml ist
-        if (isConfigAlias(command.getName())) {
-            subCommand = resolveConfigAlias(command.getName());
-            effectiveArgs = args; // Bei direktem Alias sind args bereits die Module-Args
-        } else if (command.getName().equalsIgnoreCase("ethriaiaaddon")) {
-            // Hauptbefehl - erwarten Subcommand als erstes Argument
-            if (args.length > 0) {
-                subCommand = args[0].toLowerCase();
-                effectiveArgs = Arrays.copyOfRange(args, 1, args.length);
-            }
-        }
-        
-        // Keine Subcommand -> Hilfe anzeigen
-        if (subCommand == null) {
-            showMainHelp(sender);
-            return true;
-        }
-        
-        // Behandle verschiedene Subcommands
-        switch (subCommand.toLowerCase()) {
-            case "help":
-                showMainHelp(sender);
-                return true;
-                
-            case "reload":
-                reloadConfig();
-                reloadModules();
-                languageManager.sendMessage(sender, "general.config-reloaded");
-                getLogger().info("GLOBAL RELOAD ausgeführt von: " + sender.getName() + " (alle Configs und Sprachdateien)");
-                return true;
-                
-            case "customlight":
-            case "clight":
-            case "cl":
-                return handleCustomLightCommand(sender, effectiveArgs);
-
-            default:
-                languageManager.sendMessage(sender, "general.unknown-command", "command", subCommand);
-                languageManager.sendMessage(sender, "general.available-commands", "commands", "help, reload, customlight");
-                break;
-        }
-        return true;
+        dispatcher = builder.build(settings.commandAliases());
+    }
+
+    /**
+     * Gibt die aktuelle Befehlstabelle zurück
+     */
+    public CommandDispatcher getDispatcher() {
+        return dispatcher;
     }
 
     /**
@@ -249,111 +349,45 @@ public class EthriaIAAddon extends JavaPlugin implements TabCompleter {
     private void showMainHelp(CommandSender sender) {
         languageManager.sendMessage(sender, "main.help-header");
         languageManager.sendMessage(sender, "main.help-reload");
+        languageManager.sendMessage(sender, "main.help-stats");
         languageManager.sendMessage(sender, "main.help-customlight");
         languageManager.sendMessage(sender, "main.help-usage");
     }
 
     /**
-     * Behandelt CustomLight Commands mit Permission-Prüfung
+     * Zeigt Tick-Zeiten, Events, Blockänderungen und Zählwerte aller Module an
      */
-    private boolean handleCustomLightCommand(CommandSender sender, String[] args) {
-        // Prüfe CustomLight-spezifische Permission ODER Admin-Permission
-        if (!sender.hasPermission("ethriaiaaddon.customlight.use") && !sender.hasPermission("ethriaiaaddon.admin")) {
-            languageManager.sendMessage(sender, "customlight.no-permission");
-            return true;
+    private void showStats(CommandSender sender) {
+        if (!metricsManager.isEnabled()) {
+            languageManager.sendMessage(sender, "stats.disabled");
+            return;
         }
 
-        CustomLightModule customLight = getModule(CustomLightModule.class);
-        if (customLight != null) {
-            return customLight.handleCommand(sender, args);
-        } else {
-            languageManager.sendMessage(sender, "customlight.module-not-loaded");
-            return true;
-        }
-    }
-
-    /**
-     * Prüft ob ein Command ein Alias aus der config.yml ist
-     */
-    private boolean isConfigAlias(String commandName) {
-        var aliasSection = getConfig().getConfigurationSection("general.command-aliases");
-        return aliasSection != null && aliasSection.contains(commandName.toLowerCase());
-    }
-
-    /**
-     * Löst einen Config-Alias zum entsprechenden Subcommand auf
-     */
-    private String resolveConfigAlias(String alias) {
-        if (getConfig().getConfigurationSection("general.command-aliases") != null) {
-            return getConfig().getString("general.command-aliases." + alias.toLowerCase(), alias);
-        }
-        return alias;
-    }
-
-
-    @Override
-    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
-        // Permission-Check für Tab-Completion
-        if (!sender.hasPermission("ethriaiaaddon.admin")) {
-            return getTabCompletionFromLanguage("tabcomplete.no-permission-tab");
-        }
-
-        // Behandle direkte Alias-Commands
-        if (isConfigAlias(command.getName())) {
-            String resolvedCommand = resolveConfigAlias(command.getName());
-
-            switch (resolvedCommand.toLowerCase()) {
-                case "customlight":
-                    if (sender.hasPermission("ethriaiaaddon.customlight.use") || sender.hasPermission("ethriaiaaddon.admin")) {
-                        CustomLightModule customLight = getModule(CustomLightModule.class);
-                        if (customLight != null) {
-                            return customLight.handleTabComplete(sender, args);
-                        }
-                    }
-                    break;
-                case "help":
-                case "reload":
-                    // Diese Befehle haben keine weiteren Completions
-                    return Collections.emptyList();
-            }
-        } else if (command.getName().equalsIgnoreCase("ethriaiaaddon")) {
-
-            if (args.length == 1) {
-                // Haupt-Befehle und Module vorschlagen
-                List<String> completions = new ArrayList<>();
-                completions.add("help");
-                completions.add("reload");
-                if (sender.hasPermission("ethriaiaaddon.customlight.use") || sender.hasPermission("ethriaiaaddon.admin")) {
-                    completions.add("customlight");
-                }
-                return completions;
-            } else if (args.length >= 2) {
-                String subCommand = args[0].toLowerCase();
-                String[] moduleArgs = Arrays.copyOfRange(args, 1, args.length);
-                
-                switch (subCommand) {
-                    case "customlight":
-                        if (sender.hasPermission("ethriaiaaddon.customlight.use") || sender.hasPermission("ethriaiaaddon.admin")) {
-                            CustomLightModule customLight = getModule(CustomLightModule.class);
-                            if (customLight != null) {
-                                return customLight.handleTabComplete(sender, moduleArgs);
-                            }
-                        }
-                        break;
-                }
+        languageManager.sendMessage(sender, "stats.header");
+        for (ModuleMetrics metrics : metricsManager.getAllModuleMetrics()) {
+            MetricsSnapshot snapshot = metrics.latest();
+            languageManager.sendMessage(sender, "stats.module",
+                    "module", snapshot.module(),
+                    "window", String.valueOf(snapshot.windowMillis() / 1000));
+            languageManager.sendMessage(sender, "stats.ticks",
+                    "p50", formatMillis(snapshot.ticks().p50Nanos()),
+                    "p99", formatMillis(snapshot.ticks().p99Nanos()),
+                    "max", formatMillis(snapshot.ticks().maxNanos()),
+                    "count", String.valueOf(snapshot.ticks().count()));
+            languageManager.sendMessage(sender, "stats.events",
+                    "count", String.valueOf(snapshot.eventCount()),
+                    "time", formatMillis(snapshot.eventNanos()));
+            languageManager.sendMessage(sender, "stats.writes",
+                    "rate", String.format(Locale.ROOT, "%.1f", snapshot.blockWritesPerSecond()));
+            for (Map.Entry<String, Integer> gauge : snapshot.gauges().entrySet()) {
+                languageManager.sendMessage(sender, "stats.gauge",
+                        "name", gauge.getKey(),
+                        "value", String.valueOf(gauge.getValue()));
             }
         }
-        return Collections.emptyList();
     }
 
-    /**
-     * Hilfsmethode um Tab-Completion aus Sprachdateien zu laden
-     */
-    private List<String> getTabCompletionFromLanguage(String path) {
-        String completionString = languageManager.getMessage(path);
-        if (completionString.isEmpty()) {
-            return Collections.emptyList();
-        }
-        return Arrays.asList(completionString.split(" "));
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
     }
 }
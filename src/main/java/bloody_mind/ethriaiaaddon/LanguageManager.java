@@ -1,58 +1,130 @@
 package bloody_mind.ethriaiaaddon;
 
-import org.bukkit.ChatColor;
+import bloody_mind.ethriaiaaddon.config.GeneralSettings;
+import bloody_mind.ethriaiaaddon.lang.MessageBundle;
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.Component;
+import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
 
 import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Manager für das mehrsprachige Nachrichtensystem
+ * Manager für das mehrsprachige Nachrichtensystem.
+ * Jede Datei in lang/ ist eine Sprache; Spieler erhalten Nachrichten in ihrer Client-Sprache.
  */
 public class LanguageManager {
 
+    // Mit dem Plugin ausgelieferte Sprachdateien
+    private static final String[] BUNDLED_LANGUAGES = {"de", "eng"};
+    private static final String FALLBACK_LANGUAGE = "de";
+
     private final EthriaIAAddon plugin;
-    private FileConfiguration langConfig;
-    private String currentLanguage;
+    private volatile String currentLanguage;
+    private volatile boolean perPlayerLanguage;
+
+    // Verfügbare Sprachen (Dateinamen in lang/ ohne .yml)
+    private volatile Set<String> availableLanguages = Collections.emptySet();
+    // Vorkompilierte Nachrichten, jede Sprache wird erst bei der ersten Verwendung geladen
+    private volatile Map<String, MessageBundle> bundles = new ConcurrentHashMap<>();
+    private volatile Map<Locale, MessageBundle> bundlesByLocale = new ConcurrentHashMap<>();
+    private volatile MessageBundle defaultBundle;
 
     public LanguageManager(EthriaIAAddon plugin) {
         this.plugin = plugin;
-        this.currentLanguage = plugin.getConfig().getString("general.language", "de");
-        loadLanguage();
+        this.currentLanguage = FALLBACK_LANGUAGE;
+        loadLanguage(plugin.getConfigManager().getSnapshot().general());
     }
 
     /**
-     * Lädt die Sprachdatei basierend auf der aktuellen Einstellung
+     * Vorbereiteter Sprachstand: gefundene Sprachen und kompilierte Standardsprache
      */
-    public void loadLanguage() {
-        String language = plugin.getConfig().getString("general.language", "de");
-
-        // Überprüfe ob die Sprache unterstützt wird
-        if (!language.equals("de") && !language.equals("eng")) {
-            plugin.getLogger().warning("Unsupported language '" + language + "', falling back to 'de'");
-            language = "de";
-        }
+    public record Languages(String language, boolean perPlayerLanguage, Set<String> available, MessageBundle defaultBundle) {
+    }
 
-        this.currentLanguage = language;
+    /**
+     * Sucht die verfügbaren Sprachdateien und lädt die Standardsprache sofort
+     */
+    public void loadLanguage(GeneralSettings settings) {
+        apply(prepare(settings));
+    }
 
+    /**
+     * Sucht die verfügbaren Sprachdateien und kompiliert die Standardsprache, ohne den aktiven Stand zu ändern
+     * (für einen Async-Thread gedacht, übernommen wird mit {@link #apply})
+     */
+    public Languages prepare(GeneralSettings settings) {
         // Erstelle lang-Ordner falls er nicht existiert
         File langDir = new File(plugin.getDataFolder(), "lang");
         if (!langDir.exists()) {
             langDir.mkdirs();
         }
 
-        // Erstelle Sprachdatei falls sie nicht existiert
-        File langFile = new File(langDir, language + ".yml");
-        if (!langFile.exists()) {
-            plugin.saveResource("lang/" + language + ".yml", false);
+        // Ausgelieferte Sprachdateien anlegen, falls sie nicht existieren
+        for (String bundled : BUNDLED_LANGUAGES) {
+            if (!new File(langDir, bundled + ".yml").exists()) {
+                plugin.saveResource("lang/" + bundled + ".yml", false);
+            }
         }
 
-        // Lade die Sprachdatei
-        langConfig = YamlConfiguration.loadConfiguration(langFile);
+        Set<String> languages = new TreeSet<>();
+        File[] files = langDir.listFiles((dir, name) -> name.endsWith(".yml"));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                languages.add(name.substring(0, name.length() - 4));
+            }
+        }
+
+        String language = settings.language();
+        if (!languages.contains(language)) {
+            plugin.getLogger().warning("Unsupported language '" + language + "', falling back to '" + FALLBACK_LANGUAGE + "'");
+            language = FALLBACK_LANGUAGE;
+        }
+
+        // Nur die Standardsprache sofort laden, alle anderen bei Bedarf
+        return new Languages(language, settings.perPlayerLanguage(), Collections.unmodifiableSet(languages),
+                loadBundle(language, null));
+    }
+
+    /**
+     * Übernimmt einen vorbereiteten Sprachstand (zusammen mit dem Konfigurationsstand, aus dem er stammt)
+     */
+    public void apply(Languages prepared) {
+        this.currentLanguage = prepared.language();
+        this.perPlayerLanguage = prepared.perPlayerLanguage();
+        this.availableLanguages = prepared.available();
+
+        Map<String, MessageBundle> loaded = new ConcurrentHashMap<>();
+        loaded.put(prepared.language(), prepared.defaultBundle());
+        this.defaultBundle = prepared.defaultBundle();
+        this.bundles = loaded;
+        this.bundlesByLocale = new ConcurrentHashMap<>();
+
+        plugin.getLogger().info("Sprache geladen: " + prepared.language() + " (verfügbar: "
+                + String.join(", ", prepared.available()) + ")");
+    }
+
+    /**
+     * Lädt und kompiliert eine Sprachdatei; fehlende Schlüssel kommen aus der JAR bzw. der Standardsprache
+     */
+    private MessageBundle loadBundle(String language, MessageBundle fallback) {
+        File langFile = new File(new File(plugin.getDataFolder(), "lang"), language + ".yml");
+        FileConfiguration langConfig = YamlConfiguration.loadConfiguration(langFile);
 
         // Lade Defaults aus der JAR-Datei
         InputStream defaultStream = plugin.getResource("lang/" + language + ".yml");
@@ -63,64 +135,144 @@ public class LanguageManager {
             langConfig.setDefaults(defaultConfig);
         }
 
-        plugin.getLogger().info("Sprache geladen: " + language);
+        return MessageBundle.compile(language, langConfig, fallback);
     }
 
     /**
-     * Gibt eine übersetzte Nachricht zurück
+     * Gibt das Bundle einer Sprache zurück und lädt es bei der ersten Verwendung
      */
-    public String getMessage(String path) {
-        return getMessage(path, "");
+    private MessageBundle bundle(String language) {
+        MessageBundle bundle = bundles.get(language);
+        if (bundle == null) {
+            bundle = bundles.computeIfAbsent(language, key -> loadBundle(key, defaultBundle));
+        }
+        return bundle;
     }
 
     /**
-     * Gibt eine übersetzte Nachricht mit Platzhaltern zurück
+     * Bundle für eine Client-Sprache: de_de -> de -> ISO-639-2 (z.B. eng) -> Standardsprache
      */
-    public String getMessage(String path, String... placeholders) {
-        String message = langConfig.getString(path, "Missing message: " + path);
+    public MessageBundle bundleFor(Locale locale) {
+        if (locale == null) return defaultBundle;
+        MessageBundle bundle = bundlesByLocale.get(locale);
+        if (bundle == null) {
+            bundle = bundlesByLocale.computeIfAbsent(locale, this::resolveBundle);
+        }
+        return bundle;
+    }
+
+    private MessageBundle resolveBundle(Locale locale) {
+        Set<String> languages = availableLanguages;
+        String language = locale.getLanguage().toLowerCase(Locale.ROOT);
+        String country = locale.getCountry().toLowerCase(Locale.ROOT);
 
-        // Ersetze Platzhalter
-        for (int i = 0; i < placeholders.length; i += 2) {
-            if (i + 1 < placeholders.length) {
-                message = message.replace("{" + placeholders[i] + "}", placeholders[i + 1]);
+        if (!country.isEmpty() && languages.contains(language + "_" + country)) {
+            return bundle(language + "_" + country);
+        }
+        if (languages.contains(language)) {
+            return bundle(language);
+        }
+        try {
+            String iso3 = locale.getISO3Language();
+            if (languages.contains(iso3)) {
+                return bundle(iso3);
             }
+        } catch (MissingResourceException ignored) {
+            // Keine dreistellige Kennung bekannt
         }
+        return defaultBundle;
+    }
+
+    /**
+     * Bundle für einen Empfänger: Spieler in ihrer Client-Sprache, alle anderen in der Standardsprache
+     */
+    private MessageBundle bundleFor(Audience receiver) {
+        if (perPlayerLanguage && receiver instanceof Player player) {
+            return bundleFor(player.locale());
+        }
+        return defaultBundle;
+    }
+
+    /**
+     * Gibt eine übersetzte Nachricht zurück
+     */
+    public String getMessage(String path) {
+        return defaultBundle.template(path).render();
+    }
+
+    /**
+     * Gibt eine übersetzte Nachricht mit Platzhaltern zurück (Paare aus Name und Wert)
+     */
+    public String getMessage(String path, String... placeholders) {
+        return defaultBundle.template(path).render(placeholders);
+    }
 
-        return ChatColor.translateAlternateColorCodes('&', message);
+    /**
+     * Gibt eine übersetzte Nachricht in der Sprache des Empfängers zurück
+     */
+    public String getMessage(CommandSender sender, String path, String... placeholders) {
+        return bundleFor(sender).template(path).render(placeholders);
     }
 
     /**
-     * Gibt eine Liste von übersetzten Nachrichten zurück
+     * Gibt eine (unveränderliche) Liste von übersetzten Nachrichten zurück
      */
-    @SuppressWarnings("unchecked")
     public List<String> getMessageList(String path) {
-        List<String> messages = (List<String>) langConfig.getList(path);
-        if (messages != null) {
-            for (int i = 0; i < messages.size(); i++) {
-                messages.set(i, ChatColor.translateAlternateColorCodes('&', messages.get(i)));
-            }
+        return defaultBundle.list(path);
+    }
+
+    /**
+     * Gibt eine Nachricht als Component zurück; statische Nachrichten kommen direkt aus dem Cache
+     */
+    public Component getComponent(String path, String... placeholders) {
+        return defaultBundle.component(path).render(placeholders);
+    }
+
+    /**
+     * Sendet eine übersetzte Nachricht in der Sprache des Empfängers
+     */
+    public void sendMessage(CommandSender sender, String path, String... placeholders) {
+        sender.sendMessage(bundleFor(sender).component(path).render(placeholders));
+    }
+
+    /**
+     * Sendet alle Zeilen einer Nachrichtenliste (z.B. Hilfe) in der Sprache des Empfängers
+     */
+    public void sendMessageList(CommandSender sender, String path) {
+        List<Component> lines = bundleFor(sender).componentList(path);
+        if (lines == null) return;
+        for (Component line : lines) {
+            sender.sendMessage(line);
         }
-        return messages;
     }
 
     /**
-     * Sendet eine übersetzte Nachricht an einen Empfänger
+     * Baut eine Nachricht einmal pro Sprache und sendet sie an alle Empfänger
      */
-    public void sendMessage(org.bukkit.command.CommandSender sender, String path, String... placeholders) {
-        sender.sendMessage(getMessage(path, placeholders));
+    public void broadcast(Iterable<? extends Audience> audiences, String path, String... placeholders) {
+        Map<MessageBundle, Component> rendered = new IdentityHashMap<>();
+        for (Audience audience : audiences) {
+            MessageBundle bundle = bundleFor(audience);
+            Component message = rendered.get(bundle);
+            if (message == null) {
+                message = bundle.component(path).render(placeholders);
+                rendered.put(bundle, message);
+            }
+            audience.sendMessage(message);
+        }
     }
 
     /**
-     * Gibt die aktuelle Sprache zurück
+     * Gibt die aktuelle Standardsprache zurück
      */
     public String getCurrentLanguage() {
         return currentLanguage;
     }
 
     /**
-     * Lädt das Sprachsystem neu
+     * Gibt alle in lang/ gefundenen Sprachen zurück
      */
-    public void reload() {
-        loadLanguage();
+    public Set<String> getAvailableLanguages() {
+        return availableLanguages;
     }
 }
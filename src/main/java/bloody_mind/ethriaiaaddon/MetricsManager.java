@@ -0,0 +1,218 @@
+package bloody_mind.ethriaiaaddon;
+
+import bloody_mind.ethriaiaaddon.config.MetricsSettings;
+import bloody_mind.ethriaiaaddon.metrics.MetricsSnapshot;
+import bloody_mind.ethriaiaaddon.metrics.ModuleMetrics;
+import bloody_mind.ethriaiaaddon.metrics.PrometheusExporter;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Manager für die Modul-Metriken: Zeitfenster abschließen, als rollierende CSV/JSON-Dateien exportieren
+ * und optional per HTTP im Prometheus-Format bereitstellen
+ */
+public class MetricsManager {
+
+    private static final String CSV_HEADER = "timestamp,module,window_s,ticks,tick_p50_ms,tick_p99_ms,tick_max_ms,"
+            + "events,event_ms,block_writes,block_writes_per_s,gauges";
+
+    private final EthriaIAAddon plugin;
+    // Bleibt über Modul-Reloads erhalten, damit die Statistik nicht verloren geht
+    private final Map<String, ModuleMetrics> moduleMetrics = new LinkedHashMap<>();
+    private final Gson gson = new Gson();
+    // Framework-weite Werte (globale Reloads)
+    private final ModuleMetrics frameworkMetrics = new ModuleMetrics("EthriaIAAddon");
+    private final PrometheusExporter prometheus = new PrometheusExporter(this::getAllModuleMetrics, frameworkMetrics);
+
+    private boolean enabled;
+    private int windowSeconds;
+    private String exportFormat;
+    private int keepDays;
+    private ScheduledTask windowTask;
+
+    public MetricsManager(EthriaIAAddon plugin) {
+        this.plugin = plugin;
+        reload();
+    }
+
+    /**
+     * Liest die Einstellungen aus der config.yml und startet den Zeitfenster-Task neu
+     */
+    public synchronized void reload() {
+        MetricsSettings settings = plugin.getConfigManager().getSnapshot().general().metrics();
+        enabled = settings.enabled();
+        windowSeconds = settings.windowSeconds();
+        exportFormat = settings.exportFormat();
+        keepDays = settings.keepDays();
+
+        for (ModuleMetrics metrics : moduleMetrics.values()) {
+            metrics.setEnabled(enabled);
+        }
+
+        shutdown();
+        if (!enabled) return;
+
+        windowTask = Bukkit.getAsyncScheduler().runAtFixedRate(plugin, task -> rotateWindows(),
+                windowSeconds, windowSeconds, TimeUnit.SECONDS);
+
+        if (settings.prometheusEnabled()) {
+            String bind = settings.prometheusBind();
+            int port = settings.prometheusPort();
+            try {
+                prometheus.start(bind, port);
+                plugin.getLogger().info("Prometheus-Metriken unter http://" + bind + ":" + port + "/metrics");
+            } catch (IOException e) {
+                plugin.getLogger().warning("Prometheus-Endpunkt konnte nicht gestartet werden (" + bind + ":" + port + "): " + e.getMessage());
+            }
+        }
+    }
+
+    public synchronized void shutdown() {
+        if (windowTask != null) {
+            windowTask.cancel();
+            windowTask = null;
+        }
+        prometheus.stop();
+    }
+
+    /**
+     * Vermerkt die Dauer eines globalen Reloads
+     */
+    public void recordReload(long nanos) {
+        frameworkMetrics.recordReload(nanos);
+    }
+
+    /**
+     * Gibt die Metriken eines Moduls zurück; Zählwerte einer vorherigen Modul-Instanz werden verworfen
+     */
+    public synchronized ModuleMetrics forModule(String moduleName) {
+        ModuleMetrics metrics = moduleMetrics.computeIfAbsent(moduleName, ModuleMetrics::new);
+        metrics.clearGauges();
+        metrics.setEnabled(enabled);
+        return metrics;
+    }
+
+    public synchronized List<ModuleMetrics> getAllModuleMetrics() {
+        return new ArrayList<>(moduleMetrics.values());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Schließt das Zeitfenster aller Module ab und exportiert es
+     */
+    private void rotateWindows() {
+        List<MetricsSnapshot> snapshots = new ArrayList<>();
+        for (ModuleMetrics metrics : getAllModuleMetrics()) {
+            snapshots.add(metrics.rotate());
+        }
+
+        try {
+            switch (exportFormat) {
+                case "csv" -> export("csv", snapshots, this::toCsv, CSV_HEADER);
+                case "json" -> export("jsonl", snapshots, this::toJson, null);
+                default -> {
+                    // "none" oder unbekannt: nur für /ethriaiaaddon stats sammeln
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Metriken konnten nicht exportiert werden: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Hängt die Zeilen an die Datei des aktuellen Tages an und löscht Dateien älter als keep-days
+     */
+    private void export(String extension, List<MetricsSnapshot> snapshots,
+                        Function<MetricsSnapshot, String> format, String header) throws IOException {
+        File folder = new File(plugin.getDataFolder(), "metrics");
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Ordner " + folder + " konnte nicht erstellt werden");
+        }
+
+        LocalDate today = LocalDate.now();
+        File file = new File(folder, "metrics-" + today + "." + extension);
+        StringBuilder lines = new StringBuilder();
+        if (header != null && !file.exists()) {
+            lines.append(header).append('\n');
+        }
+        for (MetricsSnapshot snapshot : snapshots) {
+            lines.append(format.apply(snapshot)).append('\n');
+        }
+        Files.writeString(file.toPath(), lines, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        // Rollierend: alte Tagesdateien entfernen (Dateiname sortiert wie das Datum)
+        String oldest = "metrics-" + today.minusDays(keepDays - 1);
+        File[] files = folder.listFiles((dir, name) -> name.startsWith("metrics-"));
+        if (files != null) {
+            for (File old : files) {
+                if (old.getName().compareTo(oldest) < 0) {
+                    old.delete();
+                }
+            }
+        }
+    }
+
+    private String toCsv(MetricsSnapshot snapshot) {
+        StringBuilder gauges = new StringBuilder();
+        for (Map.Entry<String, Integer> gauge : snapshot.gauges().entrySet()) {
+            if (gauges.length() > 0) gauges.append(';');
+            gauges.append(gauge.getKey()).append('=').append(gauge.getValue());
+        }
+        return String.format(Locale.ROOT, "%d,%s,%d,%d,%.3f,%.3f,%.3f,%d,%.3f,%d,%.1f,%s",
+                snapshot.timestamp(), snapshot.module(), snapshot.windowMillis() / 1000,
+                snapshot.ticks().count(), millis(snapshot.ticks().p50Nanos()), millis(snapshot.ticks().p99Nanos()),
+                millis(snapshot.ticks().maxNanos()), snapshot.eventCount(), millis(snapshot.eventNanos()),
+                snapshot.blockWrites(), snapshot.blockWritesPerSecond(), gauges);
+    }
+
+    private String toJson(MetricsSnapshot snapshot) {
+        JsonObject json = new JsonObject();
+        json.addProperty("timestamp", snapshot.timestamp());
+        json.addProperty("module", snapshot.module());
+        json.addProperty("window_s", snapshot.windowMillis() / 1000);
+
+        JsonObject ticks = new JsonObject();
+        ticks.addProperty("count", snapshot.ticks().count());
+        ticks.addProperty("p50_ms", millis(snapshot.ticks().p50Nanos()));
+        ticks.addProperty("p99_ms", millis(snapshot.ticks().p99Nanos()));
+        ticks.addProperty("max_ms", millis(snapshot.ticks().maxNanos()));
+        json.add("ticks", ticks);
+
+        JsonObject events = new JsonObject();
+        snapshot.events().forEach(events::addProperty);
+        json.add("events", events);
+        json.addProperty("event_ms", millis(snapshot.eventNanos()));
+
+        json.addProperty("block_writes", snapshot.blockWrites());
+        json.addProperty("block_writes_per_s", snapshot.blockWritesPerSecond());
+
+        JsonObject gauges = new JsonObject();
+        snapshot.gauges().forEach(gauges::addProperty);
+        json.add("gauges", gauges);
+        return gson.toJson(json);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,194 @@
+package bloody_mind.ethriaiaaddon.command;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import io.papermc.paper.command.brigadier.Commands;
+import org.bukkit.command.CommandSender;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Befehlstabelle, wird einmal pro Konfigurationsstand aufgebaut.
+ * Daraus entstehen die Brigadier-Bäume für den Hauptbefehl und alle Config-Aliases;
+ * Parsing, Vorschläge und Permission-Prüfung übernimmt danach Brigadier.
+ */
+public final class CommandDispatcher {
+
+    private static final String ARGS = "args";
+    private static final String[] NO_ARGS = new String[0];
+
+    /**
+     * Ziel eines Config-Alias; handler ist null, wenn der Alias auf einen unbekannten Subcommand zeigt
+     */
+    public record Route(String subCommand, SubCommand handler) {
+    }
+
+    private record Entry(String permission, SubCommand handler) {
+    }
+
+    private final String overridePermission;
+    private final SubCommand rootHandler;
+    private final SubCommand unknownHandler;
+    private final Map<String, Entry> subCommands;
+    private final Map<String, Route> aliasRoutes;
+
+    private CommandDispatcher(Builder builder, Map<String, Route> aliasRoutes) {
+        this.overridePermission = builder.overridePermission;
+        this.rootHandler = builder.rootHandler;
+        this.unknownHandler = builder.unknownHandler;
+        this.subCommands = Map.copyOf(builder.subCommands);
+        this.aliasRoutes = Map.copyOf(aliasRoutes);
+    }
+
+    /**
+     * @param overridePermission Permission für alle Befehle, schließt alle anderen ein (ethriaiaaddon.admin)
+     * @param rootHandler        Hauptbefehl ohne Argumente
+     * @param unknownHandler     unbekannter Subcommand, erhält dessen Namen als erstes Argument
+     */
+    public static Builder builder(String overridePermission, SubCommand rootHandler, SubCommand unknownHandler) {
+        return new Builder(overridePermission, rootHandler, unknownHandler);
+    }
+
+    /**
+     * Gibt das Ziel eines Config-Alias zurück (null wenn der Command kein Alias ist)
+     */
+    public Route resolveAlias(String commandName) {
+        return aliasRoutes.get(commandName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Gibt den Handler eines Subcommands zurück (null wenn unbekannt)
+     */
+    public SubCommand get(String subCommand) {
+        Entry entry = subCommands.get(subCommand.toLowerCase(Locale.ROOT));
+        return entry != null ? entry.handler() : null;
+    }
+
+    /**
+     * Baut den Brigadier-Baum des Hauptbefehls mit allen Subcommands
+     */
+    public LiteralCommandNode<CommandSourceStack> buildRoot(String name) {
+        LiteralArgumentBuilder<CommandSourceStack> root = Commands.literal(name)
+                .requires(source -> source.getSender().hasPermission(overridePermission))
+                .executes(context -> run(rootHandler, context.getSource().getSender(), NO_ARGS));
+
+        for (Map.Entry<String, Entry> subCommand : subCommands.entrySet()) {
+            root.then(subCommandNode(subCommand.getKey(), subCommand.getValue()));
+        }
+
+        // Alles andere ist ein unbekannter Subcommand
+        root.then(Commands.argument(ARGS, StringArgumentType.greedyString())
+                .executes(context -> run(unknownHandler, context.getSource().getSender(),
+                        splitArgs(StringArgumentType.getString(context, ARGS)))));
+        return root.build();
+    }
+
+    /**
+     * Baut je Config-Alias einen eigenen Befehl, der direkt auf den Subcommand zeigt
+     */
+    public List<LiteralCommandNode<CommandSourceStack>> buildAliases() {
+        List<LiteralCommandNode<CommandSourceStack>> nodes = new ArrayList<>();
+        for (Map.Entry<String, Route> alias : aliasRoutes.entrySet()) {
+            Entry entry = subCommands.get(alias.getValue().subCommand());
+            if (entry != null) {
+                nodes.add(subCommandNode(alias.getKey(), entry)
+                        .requires(source -> hasPermission(source.getSender(), entry.permission())
+                                && source.getSender().hasPermission(overridePermission))
+                        .build());
+            } else {
+                String target = alias.getValue().subCommand();
+                nodes.add(Commands.literal(alias.getKey())
+                        .requires(source -> source.getSender().hasPermission(overridePermission))
+                        .executes(context -> run(unknownHandler, context.getSource().getSender(), new String[]{target}))
+                        .build());
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Knoten eines Subcommands: eigene Argumente des Handlers, Rest als Text-Argumente
+     */
+    private LiteralArgumentBuilder<CommandSourceStack> subCommandNode(String literal, Entry entry) {
+        SubCommand handler = entry.handler();
+        LiteralArgumentBuilder<CommandSourceStack> node = Commands.literal(literal)
+                .requires(source -> hasPermission(source.getSender(), entry.permission()))
+                .executes(context -> run(handler, context.getSource().getSender(), NO_ARGS));
+        handler.buildTree(node);
+        node.then(Commands.argument(ARGS, StringArgumentType.greedyString())
+                .executes(context -> run(handler, context.getSource().getSender(),
+                        splitArgs(StringArgumentType.getString(context, ARGS)))));
+        return node;
+    }
+
+    private boolean hasPermission(CommandSender sender, String permission) {
+        return permission == null || sender.hasPermission(permission) || sender.hasPermission(overridePermission);
+    }
+
+    private static int run(SubCommand handler, CommandSender sender, String[] args) {
+        handler.execute(sender, args);
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static String[] splitArgs(String input) {
+        String trimmed = input.trim();
+        return trimmed.isEmpty() ? NO_ARGS : trimmed.split(" +");
+    }
+
+    public static final class Builder {
+
+        private final String overridePermission;
+        private final SubCommand rootHandler;
+        private final SubCommand unknownHandler;
+        private final Map<String, Entry> subCommands = new LinkedHashMap<>();
+
+        private Builder(String overridePermission, SubCommand rootHandler, SubCommand unknownHandler) {
+            this.overridePermission = overridePermission;
+            this.rootHandler = rootHandler;
+            this.unknownHandler = unknownHandler;
+        }
+
+        /**
+         * Registriert einen Subcommand
+         *
+         * @param permission zusätzlich benötigte Permission, oder null
+         */
+        public Builder register(String name, String permission, SubCommand handler) {
+            subCommands.put(name.toLowerCase(Locale.ROOT), new Entry(permission, handler));
+            return this;
+        }
+
+        /**
+         * Registriert einen weiteren Namen für einen bereits registrierten Subcommand
+         */
+        public Builder alias(String name, String target) {
+            Entry entry = subCommands.get(target.toLowerCase(Locale.ROOT));
+            if (entry == null) {
+                throw new IllegalArgumentException("Unbekannter Subcommand: " + target);
+            }
+            subCommands.put(name.toLowerCase(Locale.ROOT), entry);
+            return this;
+        }
+
+        /**
+         * Baut die Tabelle; configAliases (Alias -> Subcommand) kommt aus der config.yml
+         */
+        public CommandDispatcher build(Map<String, String> configAliases) {
+            Map<String, Route> routes = new HashMap<>();
+            for (Map.Entry<String, String> alias : configAliases.entrySet()) {
+                String target = alias.getValue().toLowerCase(Locale.ROOT);
+                Entry entry = subCommands.get(target);
+                routes.put(alias.getKey().toLowerCase(Locale.ROOT), new Route(target, entry != null ? entry.handler() : null));
+            }
+            return new CommandDispatcher(this, routes);
+        }
+    }
+}
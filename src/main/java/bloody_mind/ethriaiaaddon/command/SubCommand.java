@@ -0,0 +1,23 @@
+package bloody_mind.ethriaiaaddon.command;
+
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import org.bukkit.command.CommandSender;
+
+/**
+ * Handler für einen Subcommand von /ethriaiaaddon (und seine Aliases)
+ */
+public interface SubCommand {
+
+    /**
+     * Führt den Subcommand aus; args enthält nur noch die Argumente nach dem Subcommand
+     */
+    boolean execute(CommandSender sender, String[] args);
+
+    /**
+     * Ergänzt den Brigadier-Knoten des Subcommands um eigene Argumente (Standard: keine).
+     * Eingaben, die hier nicht abgebildet sind, kommen als Text-Argumente in {@link #execute}.
+     */
+    default void buildTree(LiteralArgumentBuilder<CommandSourceStack> node) {
+    }
+}
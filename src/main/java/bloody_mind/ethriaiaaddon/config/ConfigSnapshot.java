@@ -0,0 +1,107 @@
+package bloody_mind.ethriaiaaddon.config;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Stand aller Konfigurationsdateien (config.yml und Modul-Dateien) zu einem Zeitpunkt.
+ * Wird abseits des Main-Threads geparst und in typisierte Einstellungen umgewandelt,
+ * danach als Ganzes ausgetauscht und nur noch gelesen.
+ */
+public final class ConfigSnapshot {
+
+    private final FileConfiguration main;
+    private final GeneralSettings general;
+    private final Map<String, FileConfiguration> modules;
+    // Modulname -> typisierte Einstellungen (nur für Module mit SettingsBinder)
+    private final Map<String, Object> moduleSettings;
+
+    public ConfigSnapshot(FileConfiguration main, GeneralSettings general,
+                          Map<String, FileConfiguration> modules, Map<String, Object> moduleSettings) {
+        this.main = main;
+        this.general = general;
+        this.modules = Collections.unmodifiableMap(new LinkedHashMap<>(modules));
+        this.moduleSettings = Collections.unmodifiableMap(new LinkedHashMap<>(moduleSettings));
+    }
+
+    /**
+     * Gibt die Hauptkonfiguration (config.yml) zurück
+     */
+    public FileConfiguration main() {
+        return main;
+    }
+
+    /**
+     * Gibt die typisierten Einstellungen der config.yml zurück
+     */
+    public GeneralSettings general() {
+        return general;
+    }
+
+    /**
+     * Gibt die Konfiguration eines Moduls zurück (null wenn das Modul keine eigene Datei hat)
+     */
+    public FileConfiguration module(String moduleName) {
+        return modules.get(moduleName.toLowerCase());
+    }
+
+    /**
+     * Gibt die typisierten Einstellungen eines Moduls zurück (null wenn nicht vorhanden)
+     */
+    public <T> T settings(String moduleName, Class<T> type) {
+        return type.cast(moduleSettings.get(moduleName.toLowerCase()));
+    }
+
+    public Set<String> moduleNames() {
+        return modules.keySet();
+    }
+
+    /**
+     * Gibt einen Snapshot zurück, in dem nur die Datei eines Moduls ersetzt ist
+     */
+    public ConfigSnapshot withModule(String moduleName, FileConfiguration config, Object settings) {
+        String key = moduleName.toLowerCase();
+        Map<String, FileConfiguration> updatedModules = new LinkedHashMap<>(modules);
+        updatedModules.put(key, config);
+        Map<String, Object> updatedSettings = new LinkedHashMap<>(moduleSettings);
+        if (settings != null) {
+            updatedSettings.put(key, settings);
+        }
+        return new ConfigSnapshot(main, general, updatedModules, updatedSettings);
+    }
+
+    /**
+     * Prüft ob sich die Einstellungen eines Moduls gegenüber dem vorherigen Snapshot geändert haben
+     */
+    public boolean moduleChanged(ConfigSnapshot previous, String moduleName) {
+        if (previous == null) return true;
+        String key = moduleName.toLowerCase();
+        if (moduleSettings.containsKey(key)) {
+            return !moduleSettings.get(key).equals(previous.moduleSettings.get(key));
+        }
+        FileConfiguration current = module(key);
+        FileConfiguration old = previous.module(key);
+        if (current == old) return false;
+        return !Objects.equals(plain(current), plain(old));
+    }
+
+    /**
+     * Wandelt Abschnitte in verschachtelte Maps um, damit Module ohne typisierte Einstellungen verglichen werden können
+     */
+    private static Object plain(Object value) {
+        if (value instanceof ConfigurationSection section) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (String key : section.getKeys(false)) {
+                values.put(key, plain(section.get(key)));
+            }
+            return values;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,135 @@
+package bloody_mind.ethriaiaaddon.config;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Überwacht Konfigurationsdateien im Plugin-Ordner per WatchService auf einem eigenen Daemon-Thread.
+ * Ereignisse werden gesammelt, bis für eine kurze Zeit nichts mehr passiert; gemeldet wird eine Datei
+ * nur, wenn sich ihr Inhalt (SHA-256) tatsächlich geändert hat.
+ */
+public final class ConfigWatcher {
+
+    // Editoren speichern oft in mehreren Schritten (Temp-Datei, Rename, Metadaten)
+    private static final long DEBOUNCE_MILLIS = 500;
+
+    private final Path directory;
+    private final Set<String> fileNames;
+    private final Consumer<String> listener;
+    private final Logger logger;
+    // Dateiname -> Hash des zuletzt gesehenen Inhalts (nur vom Watcher-Thread benutzt)
+    private final Map<String, byte[]> hashes = new HashMap<>();
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * @param listener erhält den Dateinamen einer geänderten Datei (auf dem Watcher-Thread)
+     */
+    public ConfigWatcher(Path directory, Set<String> fileNames, Consumer<String> listener, Logger logger) {
+        this.directory = directory;
+        this.fileNames = Set.copyOf(fileNames);
+        this.listener = listener;
+        this.logger = logger;
+    }
+
+    public synchronized void start() throws IOException {
+        if (thread != null) return;
+
+        // Aktuellen Stand merken, damit nur spätere Änderungen gemeldet werden
+        for (String fileName : fileNames) {
+            hashes.put(fileName, hash(directory.resolve(fileName)));
+        }
+
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        thread = new Thread(this::run, "EthriaIAAddon-ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        if (thread == null) return;
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+            // Der Thread beendet sich trotzdem über ClosedWatchServiceException
+        }
+        thread.interrupt();
+        thread = null;
+        watchService = null;
+    }
+
+    private void run() {
+        WatchService service = watchService;
+        Set<String> pending = new LinkedHashSet<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // Ohne offene Änderungen blockieren, sonst nur bis zum Ende der Ruhephase warten
+                WatchKey key = pending.isEmpty() ? service.take() : service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    for (String fileName : pending) {
+                        checkChanged(fileName);
+                    }
+                    pending.clear();
+                    continue;
+                }
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path path && fileNames.contains(path.getFileName().toString())) {
+                        pending.add(path.getFileName().toString());
+                    }
+                }
+                if (!key.reset()) {
+                    logger.warning("Konfigurationsordner wird nicht mehr überwacht: " + directory);
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watcher wurde gestoppt
+        }
+    }
+
+    private void checkChanged(String fileName) {
+        byte[] hash = hash(directory.resolve(fileName));
+        if (hash == null || Arrays.equals(hash, hashes.get(fileName))) {
+            return;
+        }
+        hashes.put(fileName, hash);
+        try {
+            listener.accept(fileName);
+        } catch (Exception e) {
+            logger.warning("Fehler beim Verarbeiten der Änderung an " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * SHA-256 des Dateiinhalts (null wenn die Datei nicht lesbar ist, z.B. mitten im Speichern)
+     */
+    private static byte[] hash(Path file) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file));
+        } catch (IOException e) {
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package bloody_mind.ethriaiaaddon.config;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Typisierte Sicht auf die config.yml, wird einmal pro Reload erzeugt
+ *
+ * @param watchConfig    Konfigurationsdateien bei Änderungen automatisch neu laden
+ * @param commandAliases Alias -> Subcommand, beide in Kleinbuchstaben
+ * @param modules        Modulname (klein) -> modules.&lt;name&gt;.enabled
+ */
+public record GeneralSettings(String language, boolean perPlayerLanguage, boolean watchConfig,
+                              Map<String, String> commandAliases, Map<String, Boolean> modules,
+                              MetricsSettings metrics) {
+
+    public static GeneralSettings from(ConfigurationSection config) {
+        Map<String, String> aliases = new HashMap<>();
+        ConfigurationSection aliasSection = config.getConfigurationSection("general.command-aliases");
+        if (aliasSection != null) {
+            for (String alias : aliasSection.getKeys(false)) {
+                String target = aliasSection.getString(alias, alias);
+                aliases.put(alias.toLowerCase(Locale.ROOT), target.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        Map<String, Boolean> modules = new HashMap<>();
+        ConfigurationSection moduleSection = config.getConfigurationSection("modules");
+        if (moduleSection != null) {
+            for (String module : moduleSection.getKeys(false)) {
+                if (moduleSection.contains(module + ".enabled")) {
+                    modules.put(module.toLowerCase(Locale.ROOT), moduleSection.getBoolean(module + ".enabled", false));
+                }
+            }
+        }
+
+        return new GeneralSettings(
+                config.getString("general.language", "de"),
+                config.getBoolean("general.per-player-language", true),
+                config.getBoolean("general.watch-config", true),
+                Map.copyOf(aliases),
+                Map.copyOf(modules),
+                MetricsSettings.from(config));
+    }
+
+    /**
+     * Prüft ob ein Modul aktiviert ist; fehlt der Eintrag, gilt der übergebene Standardwert
+     */
+    public boolean isModuleEnabled(String moduleName, boolean defaultValue) {
+        Boolean enabled = modules.get(moduleName.toLowerCase(Locale.ROOT));
+        return enabled != null ? enabled : defaultValue;
+    }
+
+    /**
+     * Löst einen Alias zum Subcommand auf (null wenn der Command kein Alias ist)
+     */
+    public String resolveAlias(String command) {
+        return commandAliases.get(command.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,23 @@
+package bloody_mind.ethriaiaaddon.config;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.Locale;
+
+/**
+ * Einstellungen aus dem Abschnitt metrics der config.yml
+ */
+public record MetricsSettings(boolean enabled, int windowSeconds, String exportFormat, int keepDays,
+                              boolean prometheusEnabled, String prometheusBind, int prometheusPort) {
+
+    public static MetricsSettings from(ConfigurationSection config) {
+        return new MetricsSettings(
+                config.getBoolean("metrics.enabled", true),
+                Math.max(5, config.getInt("metrics.window-seconds", 60)),
+                config.getString("metrics.export", "csv").toLowerCase(Locale.ROOT),
+                Math.max(1, config.getInt("metrics.keep-days", 7)),
+                config.getBoolean("metrics.prometheus.enabled", false),
+                config.getString("metrics.prometheus.bind", "127.0.0.1"),
+                config.getInt("metrics.prometheus.port", 9465));
+    }
+}
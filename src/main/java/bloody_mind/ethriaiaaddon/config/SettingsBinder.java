@@ -0,0 +1,15 @@
+package bloody_mind.ethriaiaaddon.config;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.logging.Logger;
+
+/**
+ * Wandelt eine geparste Konfigurationsdatei einmal pro Reload in ein unveränderliches Einstellungsobjekt um.
+ * Läuft auf dem Async-Thread des Reloads; ungültige Werte werden gemeldet und durch Standardwerte ersetzt.
+ */
+@FunctionalInterface
+public interface SettingsBinder<T> {
+
+    T bind(ConfigurationSection config, Logger logger);
+}
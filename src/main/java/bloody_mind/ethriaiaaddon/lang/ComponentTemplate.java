@@ -0,0 +1,87 @@
+package bloody_mind.ethriaiaaddon.lang;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextReplacementConfig;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Einmalig deserialisierte Nachricht als Adventure-Component.
+ * Nachrichten mit '&'-Farbcodes werden als Legacy-Text gelesen, alle anderen als MiniMessage.
+ * Platzhalter werden per Component-Ersetzung eingesetzt und übernehmen den Stil ihrer Umgebung.
+ */
+public final class ComponentTemplate {
+
+    private static final Pattern LEGACY_CODE = Pattern.compile("[&§][0-9a-fk-orA-FK-OR]");
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{([\\p{L}\\p{N}_-]+)}");
+
+    private final Component component;
+    // null bei statischen Nachrichten: diese werden ohne jede Verarbeitung gesendet
+    private final Pattern placeholders;
+
+    private ComponentTemplate(Component component, Pattern placeholders) {
+        this.component = component;
+        this.placeholders = placeholders;
+    }
+
+    public static ComponentTemplate compile(String raw) {
+        Component component = isMiniMessage(raw)
+                ? MiniMessage.miniMessage().deserialize(raw)
+                : LegacyComponentSerializer.legacyAmpersand().deserialize(raw);
+
+        Set<String> names = new LinkedHashSet<>();
+        Matcher matcher = PLACEHOLDER.matcher(raw);
+        while (matcher.find()) {
+            names.add(Pattern.quote(matcher.group(1)));
+        }
+        Pattern pattern = names.isEmpty() ? null : Pattern.compile("\\{(" + String.join("|", names) + ")}");
+        return new ComponentTemplate(component, pattern);
+    }
+
+    /**
+     * Prüft, ob eine Rohnachricht MiniMessage ist (keine Legacy-Farbcodes enthält)
+     */
+    public static boolean isMiniMessage(String raw) {
+        return !LEGACY_CODE.matcher(raw).find();
+    }
+
+    /**
+     * Wandelt eine MiniMessage-Nachricht in Legacy-Text ('§') für String-basierte APIs um
+     */
+    public static String toLegacy(String raw) {
+        if (!isMiniMessage(raw)) return raw;
+        return LegacyComponentSerializer.legacySection().serialize(MiniMessage.miniMessage().deserialize(raw));
+    }
+
+    /**
+     * Setzt die Platzhalter ein (Paare aus Name und Wert); unbekannte Platzhalter bleiben als {name} stehen
+     */
+    public Component render(String... values) {
+        if (placeholders == null) return component;
+        return component.replaceText(TextReplacementConfig.builder()
+                .match(placeholders)
+                .replacement((match, builder) -> {
+                    String value = valueOf(match.group(1), values);
+                    return Component.text(value != null ? value : match.group());
+                })
+                .build());
+    }
+
+    private static String valueOf(String name, String[] values) {
+        for (int i = 0; i + 1 < values.length; i += 2) {
+            if (name.equals(values[i])) {
+                return values[i + 1];
+            }
+        }
+        return null;
+    }
+
+    public boolean isStatic() {
+        return placeholders == null;
+    }
+}
@@ -0,0 +1,105 @@
+package bloody_mind.ethriaiaaddon.lang;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.ChatColor;
+import org.bukkit.configuration.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Alle vorkompilierten Nachrichten einer Sprache: als Legacy-Text und als Adventure-Component.
+ * Fehlende Schlüssel werden aus dem Fallback-Bundle (Standardsprache) gelesen.
+ */
+public final class MessageBundle {
+
+    private final String language;
+    private final MessageBundle fallback;
+
+    private final Map<String, MessageTemplate> templates = new ConcurrentHashMap<>();
+    private final Map<String, ComponentTemplate> components = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> lists = new HashMap<>();
+    private final Map<String, List<Component>> componentLists = new HashMap<>();
+
+    private MessageBundle(String language, MessageBundle fallback) {
+        this.language = language;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Kompiliert alle Nachrichten der Sprachdatei inkl. Defaults aus der JAR
+     *
+     * @param fallback Bundle für fehlende Schlüssel, null für die Standardsprache
+     */
+    public static MessageBundle compile(String language, Configuration config, MessageBundle fallback) {
+        MessageBundle bundle = new MessageBundle(language, fallback);
+        bundle.compileSection(config);
+        Configuration defaults = config.getDefaults();
+        if (defaults != null) {
+            bundle.compileSection(defaults);
+        }
+        return bundle;
+    }
+
+    private void compileSection(Configuration config) {
+        for (String path : config.getKeys(true)) {
+            // Werte der Sprachdatei haben Vorrang vor den Defaults
+            if (templates.containsKey(path) || lists.containsKey(path)) continue;
+            if (config.isString(path)) {
+                String raw = config.getString(path);
+                templates.put(path, MessageTemplate.compile(ComponentTemplate.toLegacy(raw)));
+                components.put(path, ComponentTemplate.compile(raw));
+            } else if (config.isList(path)) {
+                List<String> translated = new ArrayList<>();
+                List<Component> lines = new ArrayList<>();
+                for (String line : config.getStringList(path)) {
+                    translated.add(ChatColor.translateAlternateColorCodes('&', ComponentTemplate.toLegacy(line)));
+                    lines.add(ComponentTemplate.compile(line).render());
+                }
+                lists.put(path, Collections.unmodifiableList(translated));
+                componentLists.put(path, Collections.unmodifiableList(lines));
+            }
+        }
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public MessageTemplate template(String path) {
+        MessageTemplate template = templates.get(path);
+        if (template == null) {
+            // Fehlende Nachricht ebenfalls zwischenspeichern
+            template = templates.computeIfAbsent(path, key ->
+                    fallback != null ? fallback.template(key) : MessageTemplate.compile(missing(key)));
+        }
+        return template;
+    }
+
+    public ComponentTemplate component(String path) {
+        ComponentTemplate component = components.get(path);
+        if (component == null) {
+            component = components.computeIfAbsent(path, key ->
+                    fallback != null ? fallback.component(key) : ComponentTemplate.compile(missing(key)));
+        }
+        return component;
+    }
+
+    public List<String> list(String path) {
+        List<String> list = lists.get(path);
+        return list == null && fallback != null ? fallback.list(path) : list;
+    }
+
+    public List<Component> componentList(String path) {
+        List<Component> list = componentLists.get(path);
+        return list == null && fallback != null ? fallback.componentList(path) : list;
+    }
+
+    private static String missing(String path) {
+        return "Missing message: " + path;
+    }
+}
@@ -0,0 +1,102 @@
+package bloody_mind.ethriaiaaddon.lang;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vorkompilierte Nachricht: Literale (Farbcodes bereits übersetzt) im Wechsel mit {platzhaltern}.
+ * Platzhalter-Werte werden unverändert eingesetzt und nicht als Farbcodes interpretiert.
+ */
+public final class MessageTemplate {
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(128));
+
+    // literals.length == placeholders.length + 1
+    private final String[] literals;
+    private final String[] placeholders;
+    // Fertige Nachricht, falls keine Platzhalter enthalten sind
+    private final String constant;
+
+    private MessageTemplate(String[] literals, String[] placeholders) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.constant = placeholders.length == 0 ? literals[0] : null;
+    }
+
+    /**
+     * Zerlegt eine Rohnachricht in Literale und Platzhalter und übersetzt die Farbcodes ('&')
+     */
+    public static MessageTemplate compile(String raw) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int literalStart = 0;
+        int open = raw.indexOf('{');
+        while (open >= 0) {
+            int close = raw.indexOf('}', open + 1);
+            if (close < 0) break;
+            String name = raw.substring(open + 1, close);
+            if (isPlaceholderName(name)) {
+                literals.add(translate(raw.substring(literalStart, open)));
+                placeholders.add(name);
+                literalStart = close + 1;
+                open = raw.indexOf('{', literalStart);
+            } else {
+                open = raw.indexOf('{', open + 1);
+            }
+        }
+        literals.add(translate(raw.substring(literalStart)));
+        return new MessageTemplate(literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+    }
+
+    private static boolean isPlaceholderName(String name) {
+        if (name.isEmpty()) return false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '-' && c != '_') return false;
+        }
+        return true;
+    }
+
+    private static String translate(String text) {
+        return ChatColor.translateAlternateColorCodes('&', text);
+    }
+
+    /**
+     * Setzt die Platzhalter ein (Paare aus Name und Wert); unbekannte Platzhalter bleiben als {name} stehen
+     */
+    public String render(String... values) {
+        if (constant != null) return constant;
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        appendTo(builder, values);
+        return builder.toString();
+    }
+
+    public void appendTo(StringBuilder builder, String... values) {
+        builder.append(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            String value = valueOf(placeholders[i], values);
+            if (value != null) {
+                builder.append(value);
+            } else {
+                builder.append('{').append(placeholders[i]).append('}');
+            }
+            builder.append(literals[i + 1]);
+        }
+    }
+
+    private static String valueOf(String name, String[] values) {
+        for (int i = 0; i + 1 < values.length; i += 2) {
+            if (name.equals(values[i])) {
+                return values[i + 1];
+            }
+        }
+        return null;
+    }
+
+    public boolean hasPlaceholders() {
+        return constant == null;
+    }
+}
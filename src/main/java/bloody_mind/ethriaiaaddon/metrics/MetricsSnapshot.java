@@ -0,0 +1,23 @@
+package bloody_mind.ethriaiaaddon.metrics;
+
+import java.util.Map;
+
+/**
+ * Unveränderliche Momentaufnahme der Metriken eines Moduls für ein Zeitfenster
+ */
+public record MetricsSnapshot(String module, long timestamp, long windowMillis, TickHistogram.Timing ticks,
+                              Map<String, Long> events, long eventNanos, long blockWrites,
+                              Map<String, Integer> gauges) {
+
+    public long eventCount() {
+        long total = 0;
+        for (long count : events.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    public double blockWritesPerSecond() {
+        return windowMillis > 0 ? blockWrites * 1000.0 / windowMillis : 0;
+    }
+}
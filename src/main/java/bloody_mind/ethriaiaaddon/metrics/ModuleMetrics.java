@@ -0,0 +1,227 @@
+package bloody_mind.ethriaiaaddon.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metriken eines Moduls: Tick-Zeiten, Events, Blockänderungen, Zähler und Zählwerte (z.B. verfolgte Spieler).
+ * Alle Aufzeichnungsmethoden sind lock- und allokationsfrei (LongAdder), auch unter Folia.
+ * Zähler laufen monoton weiter; die Zeitfenster für /ethriaiaaddon stats werden als Differenz gebildet.
+ */
+public final class ModuleMetrics {
+
+    private final String module;
+    private volatile boolean enabled = true;
+
+    private final TickHistogram ticks = new TickHistogram();
+    private final LongAdder ticksTotal = new LongAdder();
+    private final LongAdder tickNanos = new LongAdder();
+    // Zähler werden bei der Registrierung aufgelöst, nicht pro Aufruf
+    private final Map<String, LongAdder> events = new ConcurrentHashMap<>();
+    private final LongAdder eventNanos = new LongAdder();
+    private final LongAdder blockWrites = new LongAdder();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    // Vom Modul auf seinem eigenen Thread gesetzt, Export und Statistik lesen nur den letzten Wert
+    private final Map<String, AtomicInteger> gauges = new ConcurrentHashMap<>();
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder reloadNanos = new LongAdder();
+
+    // Zählerstände beim Abschluss des letzten Fensters
+    private final Map<String, Long> lastEventSums = new HashMap<>();
+    private long lastEventNanos;
+    private long lastBlockWrites;
+    private long windowStart = System.currentTimeMillis();
+    private volatile MetricsSnapshot lastWindow;
+
+    public ModuleMetrics(String module) {
+        this.module = module;
+    }
+
+    public String getModule() {
+        return module;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Startzeit für {@link #endTick(long)}; 0 wenn Metriken deaktiviert sind
+     */
+    public long startTick() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void endTick(long start) {
+        if (start != 0L) {
+            long nanos = System.nanoTime() - start;
+            ticks.record(nanos);
+            ticksTotal.increment();
+            tickNanos.add(nanos);
+        }
+    }
+
+    /**
+     * Gibt den Zähler für einen Event-Typ zurück (einmalig bei der Registrierung abfragen)
+     */
+    public LongAdder eventCounter(String eventName) {
+        return events.computeIfAbsent(eventName, name -> new LongAdder());
+    }
+
+    public void recordEvent(LongAdder counter, long nanos) {
+        counter.increment();
+        eventNanos.add(nanos);
+    }
+
+    public void addBlockWrites(int writes) {
+        if (enabled && writes > 0) {
+            blockWrites.add(writes);
+        }
+    }
+
+    /**
+     * Gibt einen modul-eigenen, monoton steigenden Zähler zurück (einmalig abfragen und behalten).
+     * Exportiert als module_&lt;name&gt;_total; Namen der eingebauten Modul-Metriken sind nicht erlaubt.
+     */
+    public LongAdder counter(String name) {
+        if (PrometheusExporter.isReservedCounter(name)) {
+            throw new IllegalArgumentException("Zählername '" + name + "' ist für den Metrik-Export reserviert");
+        }
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Gibt einen Zählwert zurück, den das Modul auf seinem eigenen Thread setzt (einmalig abfragen und behalten).
+     * Exportiert als module_&lt;name&gt;; Namen der eingebauten Metriken und Endungen auf _total sind nicht erlaubt.
+     */
+    public AtomicInteger gauge(String name) {
+        if (PrometheusExporter.isReservedGauge(name)) {
+            throw new IllegalArgumentException("Name des Zählwerts '" + name + "' ist für den Metrik-Export reserviert");
+        }
+        return gauges.computeIfAbsent(name, key -> new AtomicInteger());
+    }
+
+    public void clearGauges() {
+        gauges.clear();
+    }
+
+    public void recordReload(long nanos) {
+        reloads.increment();
+        reloadNanos.add(nanos);
+    }
+
+    /**
+     * Schließt das aktuelle Zeitfenster ab und beginnt ein neues
+     */
+    public synchronized MetricsSnapshot rotate() {
+        MetricsSnapshot snapshot = snapshot(true);
+        lastWindow = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * Letztes abgeschlossenes Zeitfenster, vor dem ersten Abschluss das laufende
+     */
+    public synchronized MetricsSnapshot latest() {
+        MetricsSnapshot last = lastWindow;
+        return last != null ? last : snapshot(false);
+    }
+
+    /**
+     * Letztes abgeschlossenes Zeitfenster ohne Lock (null vor dem ersten Abschluss)
+     */
+    public MetricsSnapshot lastWindow() {
+        return lastWindow;
+    }
+
+    private MetricsSnapshot snapshot(boolean reset) {
+        long now = System.currentTimeMillis();
+        Map<String, Long> eventCounts = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : events.entrySet()) {
+            long sum = entry.getValue().sum();
+            long count = sum - lastEventSums.getOrDefault(entry.getKey(), 0L);
+            if (count > 0) {
+                eventCounts.put(entry.getKey(), count);
+            }
+            if (reset) {
+                lastEventSums.put(entry.getKey(), sum);
+            }
+        }
+
+        long eventNanosSum = eventNanos.sum();
+        long blockWritesSum = blockWrites.sum();
+        MetricsSnapshot snapshot = new MetricsSnapshot(module, now, now - windowStart, ticks.snapshot(reset),
+                Collections.unmodifiableMap(eventCounts),
+                eventNanosSum - lastEventNanos,
+                blockWritesSum - lastBlockWrites,
+                gaugeValues());
+        if (reset) {
+            lastEventNanos = eventNanosSum;
+            lastBlockWrites = blockWritesSum;
+            windowStart = now;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Liest die zuletzt gesetzten Zählwerte aus
+     */
+    public Map<String, Integer> gaugeValues() {
+        Map<String, Integer> values = new TreeMap<>();
+        for (Map.Entry<String, AtomicInteger> entry : gauges.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().get());
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    // Monotone Zählerstände für den Prometheus-Export
+
+    public long ticksTotal() {
+        return ticksTotal.sum();
+    }
+
+    public long tickNanosTotal() {
+        return tickNanos.sum();
+    }
+
+    public Map<String, Long> eventTotals() {
+        return sums(events);
+    }
+
+    public long eventNanosTotal() {
+        return eventNanos.sum();
+    }
+
+    public long blockWritesTotal() {
+        return blockWrites.sum();
+    }
+
+    public Map<String, Long> counterTotals() {
+        return sums(counters);
+    }
+
+    public long reloadsTotal() {
+        return reloads.sum();
+    }
+
+    public long reloadNanosTotal() {
+        return reloadNanos.sum();
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> adders) {
+        Map<String, Long> sums = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : adders.entrySet()) {
+            sums.put(entry.getKey(), entry.getValue().sum());
+        }
+        return sums;
+    }
+}
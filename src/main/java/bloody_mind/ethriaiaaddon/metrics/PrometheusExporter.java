@@ -0,0 +1,236 @@
+package bloody_mind.ethriaiaaddon.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Eingebetteter HTTP-Endpunkt (/metrics) im Prometheus-Textformat.
+ * Liest nur LongAdder-Summen und das letzte abgeschlossene Fenster, blockiert also nie den Main-Thread.
+ */
+public final class PrometheusExporter {
+
+    private static final String PREFIX = "ethriaiaaddon_";
+    // Modul-eigene Zähler und Zählwerte
+    private static final String MODULE_PREFIX = "module_";
+    // Eingebaute Metriken, deren Namen modul-eigene Zähler und Zählwerte nicht annehmen dürfen
+    private static final Set<String> RESERVED_NAMES = Set.of("ticks_total", "tick_seconds", "tick_seconds_sum",
+            "tick_seconds_count", "tick_max_seconds", "events_total", "event_seconds_total", "block_writes_total",
+            "module_reloads_total", "module_reload_seconds_total", "reloads_total", "reload_seconds_total");
+
+    private final Supplier<List<ModuleMetrics>> modules;
+    private final ModuleMetrics framework;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public PrometheusExporter(Supplier<List<ModuleMetrics>> modules, ModuleMetrics framework) {
+        this.modules = modules;
+        this.framework = framework;
+    }
+
+    public void start(String bind, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getByName(bind), port), 0);
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "EthriaIAAddon-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::handle);
+        server.start();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Erzeugt die Ausgabe im Prometheus-Textformat
+     */
+    String render() {
+        List<ModuleMetrics> all = modules.get();
+        StringBuilder out = new StringBuilder(4096);
+
+        family(out, "ticks_total", "counter", "Anzahl gemessener Modul-Tasks");
+        for (ModuleMetrics metrics : all) {
+            sample(out, "ticks_total", metrics, null, null, metrics.ticksTotal());
+        }
+
+        // Quantile aus dem letzten Fenster, Summe und Anzahl seit dem Start
+        family(out, "tick_seconds", "summary", "Laufzeit der Modul-Tasks");
+        for (ModuleMetrics metrics : all) {
+            MetricsSnapshot window = metrics.lastWindow();
+            if (window != null) {
+                sample(out, "tick_seconds", metrics, "quantile", "0.5", seconds(window.ticks().p50Nanos()));
+                sample(out, "tick_seconds", metrics, "quantile", "0.99", seconds(window.ticks().p99Nanos()));
+            }
+            sample(out, "tick_seconds_sum", metrics, null, null, seconds(metrics.tickNanosTotal()));
+            sample(out, "tick_seconds_count", metrics, null, null, metrics.ticksTotal());
+        }
+
+        family(out, "tick_max_seconds", "gauge", "Längste Laufzeit eines Modul-Tasks im letzten Fenster");
+        for (ModuleMetrics metrics : all) {
+            MetricsSnapshot window = metrics.lastWindow();
+            if (window == null) continue;
+            sample(out, "tick_max_seconds", metrics, null, null, seconds(window.ticks().maxNanos()));
+        }
+
+        family(out, "events_total", "counter", "Verarbeitete Events pro Event-Typ");
+        for (ModuleMetrics metrics : all) {
+            for (Map.Entry<String, Long> event : metrics.eventTotals().entrySet()) {
+                sample(out, "events_total", metrics, "event", event.getKey(), event.getValue());
+            }
+        }
+
+        family(out, "event_seconds_total", "counter", "Gesamtzeit in Event-Handlern");
+        for (ModuleMetrics metrics : all) {
+            sample(out, "event_seconds_total", metrics, null, null, seconds(metrics.eventNanosTotal()));
+        }
+
+        family(out, "block_writes_total", "counter", "Geschriebene Blockänderungen");
+        for (ModuleMetrics metrics : all) {
+            sample(out, "block_writes_total", metrics, null, null, metrics.blockWritesTotal());
+        }
+
+        family(out, "module_reloads_total", "counter", "Modul-Reloads");
+        for (ModuleMetrics metrics : all) {
+            sample(out, "module_reloads_total", metrics, null, null, metrics.reloadsTotal());
+        }
+
+        family(out, "module_reload_seconds_total", "counter", "Gesamtdauer der Modul-Reloads");
+        for (ModuleMetrics metrics : all) {
+            sample(out, "module_reload_seconds_total", metrics, null, null, seconds(metrics.reloadNanosTotal()));
+        }
+
+        // Modul-eigene Zähler und Zählwerte, je Modul einmal gelesen und nach Namen gruppiert.
+        // Das Präfix module_ trennt sie von den Framework-Metriken (z.B. reloads_total)
+        List<Map<String, Long>> counters = new ArrayList<>();
+        List<Map<String, Integer>> gauges = new ArrayList<>();
+        TreeSet<String> counterNames = new TreeSet<>();
+        TreeSet<String> gaugeNames = new TreeSet<>();
+        for (ModuleMetrics metrics : all) {
+            counters.add(metrics.counterTotals());
+            gauges.add(metrics.gaugeValues());
+            counterNames.addAll(counters.get(counters.size() - 1).keySet());
+            gaugeNames.addAll(gauges.get(gauges.size() - 1).keySet());
+        }
+        for (String counter : counterNames) {
+            String name = counterName(counter);
+            family(out, name, "counter", counter);
+            for (int i = 0; i < all.size(); i++) {
+                Long value = counters.get(i).get(counter);
+                if (value != null) {
+                    sample(out, name, all.get(i), null, null, value);
+                }
+            }
+        }
+        for (String gauge : gaugeNames) {
+            String name = gaugeName(gauge);
+            family(out, name, "gauge", gauge);
+            for (int i = 0; i < all.size(); i++) {
+                Integer value = gauges.get(i).get(gauge);
+                if (value != null) {
+                    sample(out, name, all.get(i), null, null, value);
+                }
+            }
+        }
+
+        family(out, "reloads_total", "counter", "Globale Reloads (/ethriaiaaddon reload)");
+        out.append(PREFIX).append("reloads_total ").append(framework.reloadsTotal()).append('\n');
+        family(out, "reload_seconds_total", "counter", "Gesamtdauer der globalen Reloads");
+        out.append(PREFIX).append("reload_seconds_total ").append(seconds(framework.reloadNanosTotal())).append('\n');
+        return out.toString();
+    }
+
+    /**
+     * Exportierter Name eines modul-eigenen Zählers
+     */
+    private static String counterName(String counter) {
+        return MODULE_PREFIX + sanitize(counter) + "_total";
+    }
+
+    /**
+     * Prüft ob ein modul-eigener Zähler mit einer eingebauten Modul-Metrik zusammenfallen würde
+     */
+    static boolean isReservedCounter(String counter) {
+        return RESERVED_NAMES.contains(counterName(counter));
+    }
+
+    /**
+     * Exportierter Name eines modul-eigenen Zählwerts
+     */
+    private static String gaugeName(String gauge) {
+        return MODULE_PREFIX + sanitize(gauge);
+    }
+
+    /**
+     * Prüft ob ein modul-eigener Zählwert mit einer eingebauten Metrik oder einem Zähler (_total) zusammenfallen würde.
+     * Auch der Name ohne module_ ist gesperrt, damit die Ausgabe eindeutig lesbar bleibt.
+     */
+    static boolean isReservedGauge(String gauge) {
+        String name = gaugeName(gauge);
+        return RESERVED_NAMES.contains(name) || RESERVED_NAMES.contains(sanitize(gauge)) || name.endsWith("_total");
+    }
+
+    private static void family(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, ModuleMetrics metrics, String label, String labelValue, Object value) {
+        out.append(PREFIX).append(name).append("{module=\"").append(escape(metrics.getModule())).append('"');
+        if (label != null) {
+            out.append(',').append(label).append("=\"").append(escape(labelValue)).append('"');
+        }
+        out.append("} ").append(value).append('\n');
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
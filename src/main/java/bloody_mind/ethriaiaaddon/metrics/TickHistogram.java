@@ -0,0 +1,70 @@
+package bloody_mind.ethriaiaaddon.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-lineares Histogramm für Laufzeiten in Nanosekunden (8 Buckets pro Zweierpotenz, ca. 12% Genauigkeit).
+ * Feste Größe, Aufzeichnen ist lock- und allokationsfrei.
+ */
+public final class TickHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Zusammenfassung eines Zeitfensters
+     */
+    public record Timing(long count, long p50Nanos, long p99Nanos, long maxNanos) {
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucketOf(nanos));
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Liefert p50/p99/max und setzt das Histogramm optional zurück.
+     * Gleichzeitige Aufzeichnungen landen im alten oder im neuen Fenster.
+     */
+    public synchronized Timing snapshot(boolean reset) {
+        long[] buckets = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = reset ? counts.getAndSet(i, 0) : counts.get(i);
+            total += buckets[i];
+        }
+        long maxNanos = reset ? max.getAndSet(0) : max.get();
+        return new Timing(total, percentile(buckets, total, maxNanos, 0.50), percentile(buckets, total, maxNanos, 0.99), maxNanos);
+    }
+
+    private static long percentile(long[] buckets, long total, long max, double quantile) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            seen += buckets[bucket];
+            if (seen >= rank) {
+                return Math.min(upperBound(bucket), max);
+            }
+        }
+        return max;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + (int) ((value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
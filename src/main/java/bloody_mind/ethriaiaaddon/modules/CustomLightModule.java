@@ -2,47 +2,123 @@ package bloody_mind.ethriaiaaddon.modules;
 
 import bloody_mind.ethriaiaaddon.AddonModule;
 import bloody_mind.ethriaiaaddon.EthriaIAAddon;
+import bloody_mind.ethriaiaaddon.command.CommandDispatcher;
+import bloody_mind.ethriaiaaddon.command.SubCommand;
+import bloody_mind.ethriaiaaddon.config.ConfigSnapshot;
+import bloody_mind.ethriaiaaddon.modules.customlight.BlockKeys;
+import bloody_mind.ethriaiaaddon.modules.customlight.CustomLightSettings;
+import bloody_mind.ethriaiaaddon.modules.customlight.EmitterSource;
+import bloody_mind.ethriaiaaddon.modules.customlight.EmitterState;
+import bloody_mind.ethriaiaaddon.modules.customlight.ItemLights;
+import bloody_mind.ethriaiaaddon.modules.customlight.LightBlockData;
+import bloody_mind.ethriaiaaddon.modules.customlight.LightEngine;
+import bloody_mind.ethriaiaaddon.modules.customlight.LightJournal;
+import bloody_mind.ethriaiaaddon.modules.customlight.LongIntOpenMap;
+import bloody_mind.ethriaiaaddon.modules.customlight.LightWriteQueue;
+import bloody_mind.ethriaiaaddon.modules.customlight.OrphanLightIndex;
+import bloody_mind.ethriaiaaddon.modules.customlight.RegionLightWriter;
+import bloody_mind.ethriaiaaddon.modules.customlight.VirtualLightView;
+import bloody_mind.ethriaiaaddon.modules.customlight.WorldLightWriter;
+import com.destroystokyo.paper.event.entity.EntityAddToWorldEvent;
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import com.destroystokyo.paper.event.player.PlayerArmorChangeEvent;
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import io.papermc.paper.command.brigadier.Commands;
+import io.papermc.paper.event.packet.PlayerChunkLoadEvent;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
 import org.bukkit.Bukkit;
-import org.bukkit.Location;
+import org.bukkit.Chunk;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
-import org.bukkit.block.data.BlockData;
-import org.bukkit.block.data.Levelled;
 import org.bukkit.command.CommandSender;
-import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockDispenseArmorEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerItemBreakEvent;
+import org.bukkit.event.player.PlayerItemHeldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
-import org.bukkit.inventory.ItemStack;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerSwapHandItemsEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.PlayerInventory;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
- * CustomLight Modul - Erzeugt dynamisches Licht basierend auf der ModelID des Helms
+ * CustomLight Modul - Erzeugt dynamisches Licht basierend auf der ModelID getragener oder fallengelassener Items
  */
-public class CustomLightModule extends AddonModule implements Listener {
-
-    private final Map<Integer, Integer> modelIdToLightLevel = new HashMap<>();
-    private final Map<UUID, Integer> lastModelId = new HashMap<>();
-    private final Map<UUID, String> lastLocationKey = new HashMap<>();
-    private final Map<UUID, Set<Location>> lightBlockLocations = new HashMap<>();
-    private List<String> commandAliases = new ArrayList<>();
-    private int removalRadius = 1;
-    private int updateInterval = 10;
-    private boolean removeAllOnHelmetOff = true;
-    private int maxLightBlocksPerPlayer = 3;
+public class CustomLightModule extends AddonModule implements Listener, SubCommand {
+
+    // Unveränderliche Einstellungen, werden beim Laden komplett ersetzt (lesbar von allen Region-Threads)
+    private volatile CustomLightSettings settings = CustomLightSettings.defaults();
+    // Lichtstärke pro Item-Fingerabdruck, wird mit den Einstellungen ersetzt
+    private volatile ItemLights itemLights = new ItemLights(Map.of());
+    // Folia: Spieler-Arbeit auf dem Entity-Scheduler, Blockänderungen auf dem Region-Scheduler
+    private final boolean folia = isFolia();
+    // Emitter, Lichtblöcke und Schreib-Queue (null solange das Modul nicht läuft).
+    // Gehört dem Main-Thread bzw. unter Folia dem globalen Region-Thread, andere Threads gehen über runLight
+    private volatile LightEngine engine;
+    private LightBlockData lightBlockData;
+    // Ziel der Blockänderungen: echte Blöcke (world) oder nur Pakete (virtual)
+    private volatile LightWriteQueue.ChunkWriter lightWriter;
+    private volatile VirtualLightView virtualView;
+
+    // Monotone Zähler für den Metrik-Export
+    private final LongAdder lightsPlaced = metrics.counter("light-blocks-placed");
+    private final LongAdder lightsRemoved = metrics.counter("light-blocks-removed");
+
+    // Umkreis für /ethriaiaaddon customlight near
+    private static final int DEFAULT_NEAR_RADIUS = 16;
+    private static final int MAX_NEAR_RADIUS = 128;
+    private static final int NEAR_NAMES_SHOWN = 5;
+
+    // Slots im Spielerinventar (PlayerInventory#getItem): Rüstung in der Reihenfolge von getArmorContents, danach die Offhand
+    private static final int FIRST_ARMOR_SLOT = 36;
+    private static final EquipmentSlot[] ARMOR_SLOTS = {EquipmentSlot.FEET, EquipmentSlot.LEGS, EquipmentSlot.CHEST, EquipmentSlot.HEAD};
+    private static final int OFF_HAND_SLOT = FIRST_ARMOR_SLOT + ARMOR_SLOTS.length;
 
     private BukkitTask lightTask;
+    private ScheduledTask flushTask;
+
+    // Journal der echten Lichtblöcke für die Bereinigung nach einem Absturz
+    private static final long JOURNAL_COMPACT_MINUTES = 5;
+    private static final int ORPHAN_CHUNKS_PER_TICK = 16;
+    private LightJournal lightJournal;
+    private volatile OrphanLightIndex orphanLights = new OrphanLightIndex();
+    // Lichtblöcke, die in entladenen Chunks nicht gesetzt werden konnten
+    private final OrphanLightIndex deferredLights = new OrphanLightIndex();
+    private ScheduledTask journalTask;
+
+    // Zählwerte für /ethriaiaaddon stats, vom Licht-Task veröffentlicht (nur er darf die Engine lesen)
+    private AtomicInteger trackedEntities;
+    private AtomicInteger lightBlocks;
+    private AtomicInteger lightSections;
+    private AtomicInteger orphanLightCount;
+    private AtomicInteger queueDepth;
 
     public CustomLightModule(EthriaIAAddon plugin) {
         super(plugin, "CustomLight");
@@ -50,19 +126,31 @@ public class CustomLightModule extends AddonModule implements Listener {
 
     @Override
     public void onEnable() {
-        if (!getConfig().getBoolean("modules.customlight.enabled", true)) {
+        if (!isModuleEnabled()) {
             plugin.getLogger().info("CustomLight Modul ist deaktiviert");
             return;
         }
 
         plugin.getLogger().info("Lade CustomLight Modul...");
 
+        engine = new LightEngine(LightEngine.ENTITY_LOCATOR, new EmitterTasks(), lightsPlaced, lightsRemoved);
+        lightBlockData = new LightBlockData();
+
+        // Journal vor dem ersten Lichtblock öffnen
+        openLightJournal();
+
         // Konfiguration laden
         loadConfigValues();
 
+        // Events registrieren (mit Metriken)
+        registerEvents(this);
 
-        // Events registrieren
-        Bukkit.getPluginManager().registerEvents(this, plugin);
+        // Zählwerte für /ethriaiaaddon stats
+        trackedEntities = metrics.gauge("tracked-entities");
+        lightBlocks = metrics.gauge("light-blocks");
+        lightSections = metrics.gauge("light-sections");
+        orphanLightCount = metrics.gauge("orphan-lights");
+        queueDepth = metrics.gauge("queue-depth");
 
         // Licht-Task starten
         startLightTask();
@@ -79,52 +167,245 @@ public class CustomLightModule extends AddonModule implements Listener {
             lightTask.cancel();
             lightTask = null;
         }
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
 
         // Alle Lichtblöcke entfernen
         removeAllLightBlocks();
+        closeLightJournal();
+        engine = null;
 
         plugin.getLogger().info("CustomLight Modul deaktiviert!");
     }
 
+    /**
+     * Übernimmt eine geänderte customlight.yml ohne Neustart - bestehende Lichter bleiben stehen.
+     * Nur das An- oder Abschalten des Moduls startet es komplett neu.
+     */
+    @Override
+    public void onConfigReload(ConfigSnapshot previous, ConfigSnapshot current) {
+        if (current.general().isModuleEnabled(moduleName, true) != previous.general().isModuleEnabled(moduleName, true)) {
+            super.onConfigReload(previous, current);
+            return;
+        }
+        if (engine == null || !current.moduleChanged(previous, "customlight")) return;
+
+        long start = System.nanoTime();
+        loadConfigValues();
+        metrics.recordReload(System.nanoTime() - start);
+    }
+
+    /**
+     * Prüft ob der Server Folia (Region-Threading) verwendet
+     */
+    private static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Öffnet das Licht-Journal und plant die Bereinigung verwaister Lichtblöcke aus einem vorherigen Lauf
+     */
+    private void openLightJournal() {
+        lightJournal = new LightJournal(new File(plugin.getDataFolder(), "customlight.journal"));
+        try {
+            orphanLights = lightJournal.open();
+        } catch (IOException | RuntimeException e) {
+            // Ein beschädigtes Journal darf das Modul nicht dauerhaft am Start hindern
+            plugin.getLogger().warning("CustomLight-Journal konnte nicht gelesen werden, beginne ein neues: " + e.getMessage());
+            orphanLights = new OrphanLightIndex();
+            try {
+                lightJournal.openEmpty();
+            } catch (IOException | RuntimeException e2) {
+                plugin.getLogger().warning("CustomLight-Journal konnte nicht angelegt werden: " + e2.getMessage());
+            }
+        }
+
+        if (!orphanLights.isEmpty()) {
+            plugin.getLogger().info(orphanLights.size() + " verwaiste Lichtblöcke gefunden, werden beim Laden ihrer Chunks entfernt");
+            cleanLoadedOrphanChunks();
+        }
+
+        journalTask = Bukkit.getAsyncScheduler().runAtFixedRate(plugin, task -> {
+            try {
+                lightJournal.compact();
+            } catch (IOException e) {
+                plugin.getLogger().warning("CustomLight-Journal konnte nicht kompaktiert werden: " + e.getMessage());
+            }
+        }, JOURNAL_COMPACT_MINUTES, JOURNAL_COMPACT_MINUTES, TimeUnit.MINUTES);
+    }
+
+    private void closeLightJournal() {
+        if (journalTask != null) {
+            journalTask.cancel();
+            journalTask = null;
+        }
+        if (lightJournal == null) return;
+        try {
+            lightJournal.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("CustomLight-Journal konnte nicht geschlossen werden: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Bereinigt verwaiste Lichtblöcke in bereits geladenen Chunks, verteilt auf mehrere Ticks.
+     * Alle anderen Chunks folgen im ChunkLoadEvent.
+     */
+    private void cleanLoadedOrphanChunks() {
+        int scheduled = 0;
+        for (UUID worldUid : orphanLights.worlds()) {
+            World world = Bukkit.getWorld(worldUid);
+            if (world == null) continue;
+            for (long chunkKey : orphanLights.chunkKeys(worldUid)) {
+                int chunkX = BlockKeys.chunkX(chunkKey);
+                int chunkZ = BlockKeys.chunkZ(chunkKey);
+                if (!world.isChunkLoaded(chunkX, chunkZ)) continue;
+
+                long delay = 1L + scheduled++ / ORPHAN_CHUNKS_PER_TICK;
+                Runnable clean = () -> {
+                    // Der Chunk kann inzwischen entladen sein - dann erledigt das ChunkLoadEvent den Rest
+                    if (world.isChunkLoaded(chunkX, chunkZ)) {
+                        cleanOrphanChunk(world.getChunkAt(chunkX, chunkZ));
+                    }
+                };
+                if (folia) {
+                    Bukkit.getRegionScheduler().runDelayed(plugin, world, chunkX, chunkZ, task -> clean.run(), delay);
+                } else {
+                    Bukkit.getScheduler().runTaskLater(plugin, clean, delay);
+                }
+            }
+        }
+    }
+
+    /**
+     * Entfernt verwaiste Lichtblöcke eines geladenen Chunks (Aufruf auf dem Thread des Chunks)
+     */
+    private void cleanOrphanChunk(Chunk chunk) {
+        LightEngine current = engine;
+        if (current == null) return;
+        World world = chunk.getWorld();
+        LongIntOpenMap keys = orphanLights.take(world.getUID(), chunk.getX(), chunk.getZ());
+        if (keys == null) return;
+
+        for (int slot = 0; slot < keys.capacity(); slot++) {
+            if (keys.valueAt(slot) == 0) continue;
+            long key = keys.keyAt(slot);
+            Block block = chunk.getBlock(BlockKeys.x(key) & 15, BlockKeys.y(key), BlockKeys.z(key) & 15);
+            if (block.getType() == Material.LIGHT) {
+                block.setBlockData(lightBlockData.air(), false);
+            }
+            lightJournal.recordRemove(world, key);
+        }
+
+        // Inzwischen wieder von einem Spieler genutzte Positionen setzt die Engine neu, statt sie hier zu prüfen
+        if (virtualView == null) {
+            int worldId = current.worldIds().idOf(world);
+            runLight(light -> light.restoreOwned(worldId, keys));
+        }
+    }
+
     private void startLightTask() {
         if (lightTask != null) {
             lightTask.cancel();
         }
 
+        if (folia) {
+            // Emitter laufen über ihre eigenen Entity-Tasks, hier werden nur die Blockänderungen verteilt
+            if (flushTask != null) {
+                flushTask.cancel();
+            }
+            flushTask = Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, task -> {
+                LightEngine current = engine;
+                if (current == null) return;
+                long start = metrics.startTick();
+                metrics.addBlockWrites(current.flush(lightWriter));
+                publishGauges(current);
+                metrics.endTick(start);
+            }, 1L, 1L);
+            return;
+        }
+
         lightTask = new BukkitRunnable() {
             @Override
             public void run() {
-                for (Player player : Bukkit.getOnlinePlayers()) {
-                    int modelId = -1;
-                    ItemStack helmet = player.getInventory().getHelmet();
-                    if (helmet != null && helmet.hasItemMeta() && helmet.getItemMeta().hasCustomModelData()) {
-                        modelId = helmet.getItemMeta().getCustomModelData();
-                    }
-                    String locationKey = player.getWorld().getName() + ":"
-                            + player.getLocation().getBlockX() + ":"
-                            + player.getLocation().getBlockY() + ":"
-                            + player.getLocation().getBlockZ();
+                runLightTick();
+            }
+        }.runTaskTimer(plugin, 0, settings.updateInterval());
+    }
 
-                    Location lightLocation = player.getLocation().add(0, 2, 0).getBlock().getLocation();
+    /**
+     * Ein Durchlauf des Licht-Tasks: bewegte Emitter verarbeiten und Blockänderungen schreiben (siehe LightEngine#tick)
+     */
+    private void runLightTick() {
+        long start = metrics.startTick();
+        metrics.addBlockWrites(engine.tick(lightWriter));
+        publishGauges(engine);
+        metrics.endTick(start);
+    }
 
-                    if (modelIdToLightLevel.containsKey(modelId)) {
-                        placeAndTrackLightBlock(player, modelId, lightLocation);
-                        removeDistantLightBlocks(player, lightLocation);
-                        trimPlayerLightBlocks(player);
-                    } else {
-                        if (removeAllOnHelmetOff) {
-                            removeAllLightBlocks(player);
-                        }
-                    }
+    /**
+     * Veröffentlicht die Zählwerte auf dem Thread, dem die Engine gehört - der Metrik-Export liest nur diese Werte
+     */
+    private void publishGauges(LightEngine current) {
+        trackedEntities.set(current.emitterCount());
+        lightBlocks.set(current.lightCount());
+        lightSections.set(current.sectionCount());
+        orphanLightCount.set(orphanLights.size());
+        queueDepth.set(current.queueDepth());
+    }
 
-                    if (lastModelId.getOrDefault(player.getUniqueId(), -2) != modelId
-                            || !locationKey.equals(lastLocationKey.get(player.getUniqueId()))) {
-                        lastModelId.put(player.getUniqueId(), modelId);
-                        lastLocationKey.put(player.getUniqueId(), locationKey);
-                    }
-                }
+    /**
+     * Folia: Startet den eigenen Task eines Emitters auf dessen Entity-Scheduler.
+     * Der Task fragt nur die Position ab, die Lichtblöcke setzt der globale Flush.
+     */
+    private void startEmitterTask(EmitterState state) {
+        if (!folia) return;
+        state.task = state.entity.getScheduler().runAtFixedRate(plugin, task -> {
+            LightEngine current = engine;
+            if (current == null) return;
+            long start = metrics.startTick();
+            current.sampleEmitter(state);
+            metrics.endTick(start);
+        }, null, 1L, settings.updateInterval());
+    }
+
+    private void stopEmitterTask(EmitterState state) {
+        if (state != null && state.task != null) {
+            state.task.cancel();
+            state.task = null;
+        }
+    }
+
+    /**
+     * Führt eine Änderung an der Licht-Engine aus: unter Paper direkt auf dem Main-Thread, unter Folia über die
+     * Übergabe-Queue der Engine, die der globale Flush vor dem Schreiben abarbeitet
+     */
+    private void runLight(Consumer<LightEngine> action) {
+        LightEngine current = engine;
+        if (current == null) return;
+        if (folia) {
+            current.post(() -> action.accept(current));
+        } else {
+            action.accept(current);
+        }
+    }
+
+    /**
+     * Führt eine Aufgabe für einen Spieler auf dessen Scheduler aus (Main-Thread bzw. Region-Thread unter Folia)
+     */
+    private void runForPlayer(Player player, Runnable action, long delayTicks) {
+        player.getScheduler().runDelayed(plugin, task -> {
+            if (player.isOnline()) {
+                action.run();
             }
-        }.runTaskTimer(plugin, 0, updateInterval);
+        }, null, Math.max(1L, delayTicks));
     }
 
     /**
@@ -138,12 +419,7 @@ public class CustomLightModule extends AddonModule implements Listener {
         }
 
         if (args.length == 0 || (args.length == 1 && args[0].equalsIgnoreCase("help"))) {
-            List<String> helpMessages = plugin.getLanguageManager().getMessageList("customlight.help");
-            if (helpMessages != null) {
-                for (String helpEntry : helpMessages) {
-                    sender.sendMessage(helpEntry);
-                }
-            }
+            plugin.getLanguageManager().sendMessageList(sender, "customlight.help");
             return true;
         }
 
@@ -151,298 +427,500 @@ public class CustomLightModule extends AddonModule implements Listener {
         if (args.length == 1 && args[0].equalsIgnoreCase("reload")) {
             // Für Reload benötigt man Admin-Permission (entweder Modul-Admin oder Global-Admin)
             if (sender.hasPermission("ethriaiaaddon.customlight.admin") || sender.hasPermission("ethriaiaaddon.admin")) {
-                // Nur CustomLight-Konfiguration neu laden
-                plugin.getConfigManager().reloadModuleConfig("customlight");
-                loadConfigValues();
-
-                plugin.getLanguageManager().sendMessage(sender, "customlight.config-reloaded");
-                plugin.getLogger().info("CustomLight-Konfiguration neu geladen von: " + sender.getName());
+                // Nur CustomLight-Konfiguration neu laden (asynchron geparst, Änderungen über onConfigReload)
+                plugin.reloadConfiguration("customlight").thenAccept(success -> {
+                    if (success) {
+                        plugin.getLanguageManager().sendMessage(sender, "customlight.config-reloaded");
+                        plugin.getLogger().info("CustomLight-Konfiguration neu geladen von: " + sender.getName());
+                    } else {
+                        plugin.getLanguageManager().sendMessage(sender, "general.config-reload-failed");
+                    }
+                });
             } else {
                 plugin.getLanguageManager().sendMessage(sender, "customlight.no-permission");
             }
             return true;
         }
 
+        // Lichter und Emitter in der Umgebung (nur Admins, nur Spieler)
+        if (args.length <= 2 && args[0].equalsIgnoreCase("near")) {
+            if (!sender.hasPermission("ethriaiaaddon.customlight.admin") && !sender.hasPermission("ethriaiaaddon.admin")) {
+                plugin.getLanguageManager().sendMessage(sender, "customlight.no-permission");
+                return true;
+            }
+            if (!(sender instanceof Player player)) {
+                plugin.getLanguageManager().sendMessage(sender, "customlight.player-only");
+                return true;
+            }
+            int radius = DEFAULT_NEAR_RADIUS;
+            if (args.length == 2) {
+                try {
+                    radius = Integer.parseInt(args[1]);
+                } catch (NumberFormatException e) {
+                    radius = -1;
+                }
+                if (radius < 1 || radius > MAX_NEAR_RADIUS) {
+                    plugin.getLanguageManager().sendMessage(sender, "customlight.near-usage", "max", String.valueOf(MAX_NEAR_RADIUS));
+                    return true;
+                }
+            }
+            showNearby(player, radius);
+            return true;
+        }
+
         plugin.getLanguageManager().sendMessage(sender, "customlight.unknown-command");
         return true;
     }
 
     /**
-     * Behandelt Tab-Completion für das CustomLight Modul
+     * Zählt Lichtblöcke und Emitter um den Spieler über den SpatialIndex (nur die Sections im Umkreis)
      */
-    public List<String> handleTabComplete(CommandSender sender, String[] args) {
-        if (args.length == 1) {
-            List<String> completions = new ArrayList<>();
-            completions.add("help");
-            if (sender.hasPermission("ethriaiaaddon.customlight.admin") || sender.hasPermission("ethriaiaaddon.admin")) {
-                completions.add("reload");
-            }
-            return completions;
-        }
-        return Collections.emptyList();
+    private void showNearby(Player player, int radius) {
+        int x = player.getLocation().getBlockX();
+        int y = player.getLocation().getBlockY();
+        int z = player.getLocation().getBlockZ();
+        World world = player.getWorld();
+
+        // Unter Folia zählt der Flush-Thread, dem der Index gehört
+        runLight(current -> {
+            int worldId = current.worldIds().idOf(world);
+            List<String> names = new ArrayList<>();
+            int lights = current.lightsNear(worldId, x, y, z, radius);
+            int emitterCount = current.emittersNear(worldId, x, y, z, radius, state -> {
+                if (state.entity instanceof Player && names.size() < NEAR_NAMES_SHOWN) {
+                    names.add(state.entity.getName());
+                }
+            });
+
+            plugin.getLanguageManager().sendMessage(player, "customlight.near", "radius", String.valueOf(radius),
+                    "lights", String.valueOf(lights), "emitters", String.valueOf(emitterCount),
+                    "players", names.isEmpty() ? "-" : String.join(", ", names));
+        });
+    }
+
+    /**
+     * Registriert /ethriaiaaddon customlight (auch als clight und cl)
+     */
+    @Override
+    public void registerCommands(CommandDispatcher.Builder commands) {
+        commands.register("customlight", "ethriaiaaddon.customlight.use", this)
+                .alias("clight", "customlight")
+                .alias("cl", "customlight");
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String[] args) {
+        return handleCommand(sender, args);
+    }
+
+    /**
+     * Brigadier-Teilbaum: help für alle, reload und near nur mit Admin-Permission
+     */
+    @Override
+    public void buildTree(LiteralArgumentBuilder<CommandSourceStack> node) {
+        node.then(Commands.literal("help")
+                        .executes(context -> {
+                            handleCommand(context.getSource().getSender(), new String[]{"help"});
+                            return Command.SINGLE_SUCCESS;
+                        }))
+                .then(Commands.literal("reload")
+                        .requires(source -> source.getSender().hasPermission("ethriaiaaddon.customlight.admin")
+                                || source.getSender().hasPermission("ethriaiaaddon.admin"))
+                        .executes(context -> {
+                            handleCommand(context.getSource().getSender(), new String[]{"reload"});
+                            return Command.SINGLE_SUCCESS;
+                        }))
+                .then(Commands.literal("near")
+                        .requires(source -> source.getSender().hasPermission("ethriaiaaddon.customlight.admin")
+                                || source.getSender().hasPermission("ethriaiaaddon.admin"))
+                        .executes(context -> {
+                            handleCommand(context.getSource().getSender(), new String[]{"near"});
+                            return Command.SINGLE_SUCCESS;
+                        })
+                        .then(Commands.argument("radius", IntegerArgumentType.integer(1, MAX_NEAR_RADIUS))
+                                .executes(context -> {
+                                    int radius = IntegerArgumentType.getInteger(context, "radius");
+                                    handleCommand(context.getSource().getSender(), new String[]{"near", String.valueOf(radius)});
+                                    return Command.SINGLE_SUCCESS;
+                                })));
     }
 
     private void loadConfigValues() {
-        // Lade die separate CustomLight-Konfiguration
-        FileConfiguration config = plugin.getConfigManager().getModuleConfig("customlight");
-        if (config == null) {
+        // Typisierte CustomLight-Einstellungen aus dem aktuellen Konfigurationsstand
+        CustomLightSettings loaded = plugin.getConfigManager().getModuleSettings("customlight", CustomLightSettings.class);
+        if (loaded == null) {
             plugin.getLogger().warning("CustomLight-Konfiguration konnte nicht geladen werden!");
             return;
         }
-        
-        modelIdToLightLevel.clear();
 
-        // Lade CustomLight-spezifische Konfiguration aus customlight.yml
-        if (config.isConfigurationSection("glowing_items")) {
-            Set<String> keys = config.getConfigurationSection("glowing_items").getKeys(false);
-            for (String key : keys) {
-                try {
-                    int id = Integer.parseInt(key);
-                    int level = config.getInt("glowing_items." + key);
-                    if (level >= 0 && level <= 15) {
-                        modelIdToLightLevel.put(id, level);
-                    }
-                } catch (NumberFormatException e) {
-                    plugin.getLogger().warning("Ungültige ModelID in CustomLight-Konfiguration: " + key);
-                }
-            }
-        }
+        CustomLightSettings previous = settings;
+        this.settings = loaded;
+        engine.setSettings(loaded);
 
-        this.removalRadius = config.getInt("radius", 10);
-        this.updateInterval = config.getInt("update-interval", 1);
-        this.removeAllOnHelmetOff = config.getBoolean("remove-all-on-helmet-off", true);
-        this.maxLightBlocksPerPlayer = config.getInt("max-light-blocks-per-player", 3);
+        // Läuft auf dem Thread, dem die Engine gehört (Main-Thread bzw. globaler Region-Thread)
+        if (lightWriter == null || loaded.virtual() != (virtualView != null)) {
+            switchLightMode(loaded.virtual());
+        }
 
-        commandAliases = config.getStringList("command-aliases");
-        
-        plugin.getLogger().info("CustomLight-Konfiguration geladen: " + modelIdToLightLevel.size() + " leuchtende Items");
-    }
+        // Geändertes Intervall: nur die Tasks neu planen, die Lichter bleiben bestehen
+        if (loaded.updateInterval() != previous.updateInterval() && (lightTask != null || flushTask != null)) {
+            startLightTask();
+            engine.forEachEmitter(state -> {
+                stopEmitterTask(state);
+                startEmitterTask(state);
+            });
+        }
 
-    private void placeAndTrackLightBlock(Player player, int modelId, Location lightLocation) {
-        int level = modelIdToLightLevel.get(modelId);
-        Block lightBlock = lightLocation.getBlock();
-        if (lightBlock.getType() == Material.AIR || lightBlock.getType() == Material.LIGHT) {
-            BlockData data = Bukkit.createBlockData(Material.LIGHT);
-            if (data instanceof Levelled) {
-                ((Levelled) data).setLevel(level);
-            }
-            lightBlock.setBlockData(data, false);
-        }
-        Set<Location> locations = lightBlockLocations.computeIfAbsent(player.getUniqueId(), k -> new LinkedHashSet<>());
-        locations.add(lightLocation);
-    }
-
-    private void removeDistantLightBlocks(Player player, Location currentLightLoc) {
-        Set<Location> locations = lightBlockLocations.get(player.getUniqueId());
-        if (locations == null) return;
-        Iterator<Location> it = locations.iterator();
-        while (it.hasNext()) {
-            Location loc = it.next();
-            // Prüfe ob die Locations in derselben Welt sind
-            if (!loc.getWorld().equals(currentLightLoc.getWorld())) {
-                // Lichtblock in anderer Welt entfernen
-                Block block = loc.getBlock();
-                if (block.getType() == Material.LIGHT) {
-                    block.setType(Material.AIR);
-                }
-                it.remove();
-                continue;
-            }
+        // Emitter-Set an die neuen ModelIDs und Quellen anpassen (auch bereits online befindliche Spieler),
+        // jeweils auf dem Thread, dem der Spieler gehört
+        ItemLights lights = new ItemLights(loaded.lightLevels());
+        this.itemLights = lights;
+        engine.refreshDropped(lights);
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            runForPlayer(player, () -> refreshSources(player, EmitterSource.EQUIPMENT_MASK), 1L);
+        }
 
-            // Normale Distanz-Prüfung
-            if (loc.distance(currentLightLoc) > removalRadius) {
-                Block block = loc.getBlock();
-                if (block.getType() == Material.LIGHT) {
-                    block.setType(Material.AIR);
-                }
-                it.remove();
+        StringJoiner sources = new StringJoiner(", ");
+        for (EmitterSource source : EmitterSource.values()) {
+            if (loaded.hasSource(source)) {
+                sources.add(source.configName());
             }
         }
+        plugin.getLogger().info("CustomLight-Konfiguration geladen: " + loaded.lightLevels().size() + " leuchtende Items, Lichtform "
+                + loaded.defaultShape() + ", Quellen: " + sources);
     }
 
-    private void trimPlayerLightBlocks(Player player) {
-        Set<Location> locations = lightBlockLocations.get(player.getUniqueId());
-        if (locations == null) return;
-        while (locations.size() > maxLightBlocksPerPlayer) {
-            Location oldest = locations.iterator().next();
-            Block block = oldest.getBlock();
-            if (block.getType() == Material.LIGHT) {
-                block.setType(Material.AIR);
-            }
-            locations.remove(oldest);
+    /**
+     * Wechselt zwischen echten Lichtblöcken und virtuellen (nur clientseitigen) Lichtern
+     */
+    private void switchLightMode(boolean virtual) {
+        if (lightWriter != null) {
+            // Bestehende Lichter noch mit dem alten Modus entfernen
+            engine.resetLights(lightWriter);
         }
+
+        virtualView = virtual ? new VirtualLightView(lightBlockData, engine.worldIds()) : null;
+        LightWriteQueue.ChunkWriter writer = virtual ? virtualView : new WorldLightWriter(lightBlockData, lightJournal, orphanLights, deferredLights);
+        // Unter Folia wird jeder Chunk auf dem Thread seiner Region geschrieben
+        // und erst dort gezählt (block_writes_total und /stats)
+        lightWriter = folia ? new RegionLightWriter(plugin, writer, metrics::addBlockWrites) : writer;
+        plugin.getLogger().info("CustomLight-Modus: " + (virtual ? "virtual (nur Pakete)" : "world (echte Lichtblöcke)"));
     }
 
-    private void removeAllLightBlocks(Player player) {
-        Set<Location> locations = lightBlockLocations.remove(player.getUniqueId());
-        if (locations != null) {
-            for (Location loc : locations) {
-                Block block = loc.getBlock();
-                if (block.getType() == Material.LIGHT) {
-                    block.setType(Material.AIR);
-                }
-            }
-        }
+    private void removeAllLightBlocks(Entity entity) {
+        int entityId = entity.getEntityId();
+        runLight(current -> current.removeLights(entityId));
     }
 
+    /**
+     * Entfernt alle Lichtblöcke beim Abschalten (die Tasks sind bereits gestoppt)
+     */
     private void removeAllLightBlocks() {
-        for (UUID playerId : lightBlockLocations.keySet()) {
-            Set<Location> locations = lightBlockLocations.get(playerId);
-            if (locations != null) {
-                for (Location loc : locations) {
-                    Block block = loc.getBlock();
-                    if (block.getType() == Material.LIGHT) {
-                        block.setType(Material.AIR);
-                    }
-                }
-            }
+        if (engine == null) return;
+        try {
+            engine.clear(lightWriter);
+        } catch (Exception e) {
+            // Unter Folia können beim Herunterfahren keine Region-Tasks mehr geplant werden
+            plugin.getLogger().warning("Lichtblöcke konnten nicht entfernt werden: " + e.getMessage());
         }
-        lightBlockLocations.clear();
-        lastModelId.clear();
-        lastLocationKey.clear();
+        lightWriter = null;
+        virtualView = null;
     }
 
     /**
-     * Event Handler: Inventar-Klick - Überprüfe Helmet-Slot Änderungen
+     * Event Handler: Inventar-Klick - liest nur die Quellen neu, deren Slot der Klick verändern kann
      */
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onInventoryClick(InventoryClickEvent event) {
-        if (!(event.getWhoClicked() instanceof Player)) return;
-
-        Player player = (Player) event.getWhoClicked();
-
-        // Nur bei Player-Inventar reagieren
-        if (event.getInventory().getType() != InventoryType.PLAYER) return;
+        if (!(event.getWhoClicked() instanceof Player player)) return;
 
-        boolean shouldCheck = false;
+        int sources = clickedSources(event, player.getInventory().getHeldItemSlot()) & settings.emitterSources();
+        if (sources != 0) {
+            // Verzögere die Überprüfung um 2 Ticks für vollständige Inventory-Update
+            runForPlayer(player, () -> refreshSources(player, sources), 2L);
+        }
+    }
 
-        // Prüfe ob es sich um den Helmet-Slot handelt (Slot 39 im Player-Inventar)
-        if (event.getSlot() == 39) {
-            shouldCheck = true;
+    /**
+     * Quellen, die ein Inventar-Klick verändern kann: der geklickte Ausrüstungsslot sowie Slots,
+     * die Zifferntaste, F, Doppel- oder Shift-Klick mitverändern
+     */
+    private int clickedSources(InventoryClickEvent event, int heldSlot) {
+        int sources = 0;
+        // Slot-Nummern gelten nur im Spielerinventar (nicht z.B. für die Rüstung eines Pferdes)
+        if (event.getClickedInventory() instanceof PlayerInventory) {
+            EmitterSource source = EmitterSource.of(equipmentSlotAt(event.getSlotType(), event.getSlot(), heldSlot));
+            if (source != null) {
+                sources |= source.bit();
+            }
         }
 
-        // Prüfe auch Shift-Click auf Items die potentiell Helme sein könnten
-        else if (event.isShiftClick() && event.getCurrentItem() != null) {
-            ItemStack item = event.getCurrentItem();
-            if (item.hasItemMeta() && item.getItemMeta().hasCustomModelData()) {
-                int modelId = item.getItemMeta().getCustomModelData();
-                if (modelIdToLightLevel.containsKey(modelId)) {
-                    shouldCheck = true;
+        switch (event.getClick()) {
+            // Zifferntaste tauscht mit einem Hotbar-Slot, F mit der Offhand
+            case NUMBER_KEY -> {
+                if (event.getHotbarButton() == heldSlot) {
+                    sources |= EmitterSource.MAIN_HAND.bit();
                 }
             }
+            case SWAP_OFFHAND -> sources |= EmitterSource.OFF_HAND.bit();
+            // Doppelklick sammelt passende Items aus allen Slots ein
+            case DOUBLE_CLICK -> sources |= EmitterSource.EQUIPMENT_MASK;
+            default -> {
+            }
         }
 
-        if (shouldCheck) {
-            // Verzögere die Überprüfung um 2 Ticks für vollständige Inventory-Update
-            Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                if (player.isOnline()) {
-                    handleHelmetChange(player);
-                }
-            }, 2L);
+        // Shift-Klick kann ein leuchtendes Item in jeden Ausrüstungsslot verschieben
+        if (event.isShiftClick() && itemLights.glows(event.getCurrentItem())) {
+            sources |= EmitterSource.EQUIPMENT_MASK;
+        }
+        return sources;
+    }
+
+    /**
+     * Ausrüstungsslot eines Slots im Spielerinventar (null für Slots ohne Quelle)
+     */
+    private static EquipmentSlot equipmentSlotAt(InventoryType.SlotType slotType, int slot, int heldSlot) {
+        // Je nach Ansicht wird die Offhand als Rüstungs- oder Hotbar-Slot gemeldet
+        if (slot == OFF_HAND_SLOT) {
+            return EquipmentSlot.OFF_HAND;
+        }
+        if (slotType == InventoryType.SlotType.ARMOR && slot >= FIRST_ARMOR_SLOT && slot < OFF_HAND_SLOT) {
+            return ARMOR_SLOTS[slot - FIRST_ARMOR_SLOT];
+        }
+        if (slotType == InventoryType.SlotType.QUICKBAR && slot == heldSlot) {
+            return EquipmentSlot.HAND;
         }
+        return null;
     }
 
     /**
-     * Event Handler: Inventar-Drag - Überprüfe Helmet-Slot Änderungen
+     * Event Handler: Inventar-Drag - kann mehrere Slots auf einmal belegen
      */
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onInventoryDrag(InventoryDragEvent event) {
-        if (!(event.getWhoClicked() instanceof Player)) return;
+        if (!(event.getWhoClicked() instanceof Player player)) return;
 
-        Player player = (Player) event.getWhoClicked();
-
-        // Nur bei Player-Inventar reagieren
-        if (event.getInventory().getType() != InventoryType.PLAYER) return;
-
-        // Prüfe ob der Helmet-Slot betroffen ist (Slot 39)
-        if (event.getRawSlots().contains(39)) {
+        int sources = settings.emitterSources() & EmitterSource.EQUIPMENT_MASK;
+        if (sources != 0) {
             // Verzögere die Überprüfung um 2 Ticks
-            Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                if (player.isOnline()) {
-                    handleHelmetChange(player);
-                }
-            }, 2L);
+            runForPlayer(player, () -> refreshSources(player, sources), 2L);
         }
     }
 
     /**
-     * Event Handler: Item Drop - Überprüfe ob ein Light-Helmet gedroppt wurde
+     * Event Handler: Hotbar-Wechsel - nur die Haupthand ändert sich
      */
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
-    public void onPlayerDropItem(PlayerDropItemEvent event) {
+    public void onPlayerItemHeld(PlayerItemHeldEvent event) {
+        if (!settings.hasSource(EmitterSource.MAIN_HAND)) return;
+
         Player player = event.getPlayer();
-        ItemStack item = event.getItemDrop().getItemStack();
-
-        if (item.hasItemMeta() && item.getItemMeta().hasCustomModelData()) {
-            int modelId = item.getItemMeta().getCustomModelData();
-            if (modelIdToLightLevel.containsKey(modelId)) {
-                // Verzögere die Überprüfung um 1 Tick
-                Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                    if (player.isOnline()) {
-                        handleHelmetChange(player);
-                    }
-                }, 1L);
-            }
+        int[] fingerprints = new int[EmitterSource.COUNT];
+        // Das Event kommt vor dem Wechsel - den neuen Slot direkt lesen
+        fingerprints[EmitterSource.MAIN_HAND.ordinal()] = ItemLights.fingerprint(player.getInventory().getItem(event.getNewSlot()));
+        updateSources(player, EmitterSource.MAIN_HAND.bit(), fingerprints);
+    }
+
+    /**
+     * Event Handler: Haupthand und Offhand tauschen (Taste F)
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerSwapHandItems(PlayerSwapHandItemsEvent event) {
+        int sources = settings.emitterSources() & (EmitterSource.MAIN_HAND.bit() | EmitterSource.OFF_HAND.bit());
+        if (sources == 0) return;
+
+        Player player = event.getPlayer();
+        // Die Items werden erst nach dem Event getauscht
+        runForPlayer(player, () -> refreshSources(player, sources), 1L);
+    }
+
+    /**
+     * Event Handler: Item Drop - Überprüfe ob ein leuchtendes Item aus einer Quelle gedroppt wurde
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerDropItem(PlayerDropItemEvent event) {
+        if (itemLights.glows(event.getItemDrop().getItemStack())) {
+            Player player = event.getPlayer();
+            // Verzögere die Überprüfung um 1 Tick
+            runForPlayer(player, () -> refreshSources(player, EmitterSource.EQUIPMENT_MASK), 1L);
         }
     }
 
     /**
-     * Event Handler: Item Break - Überprüfe ob ein Light-Helmet kaputt gegangen ist
+     * Event Handler: Item Break - Überprüfe ob ein leuchtendes Item kaputt gegangen ist
      */
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerItemBreak(PlayerItemBreakEvent event) {
-        Player player = event.getPlayer();
-        ItemStack item = event.getBrokenItem();
-
-        if (item.hasItemMeta() && item.getItemMeta().hasCustomModelData()) {
-            int modelId = item.getItemMeta().getCustomModelData();
-            if (modelIdToLightLevel.containsKey(modelId)) {
-                // Verzögere die Überprüfung um 1 Tick
-                Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                    if (player.isOnline()) {
-                        handleHelmetChange(player);
-                    }
-                }, 1L);
-            }
+        if (itemLights.glows(event.getBrokenItem())) {
+            Player player = event.getPlayer();
+            // Verzögere die Überprüfung um 1 Tick
+            runForPlayer(player, () -> refreshSources(player, EmitterSource.EQUIPMENT_MASK), 1L);
         }
     }
 
     /**
-     * Behandelt Helmet-Änderungen und aktualisiert entsprechend die Lichtblöcke
+     * Event Handler: Item aufgehoben - kann direkt in der Haupthand oder Offhand landen
      */
-    private void handleHelmetChange(Player player) {
-        try {
-            if (!player.isOnline()) return;
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityPickupItem(EntityPickupItemEvent event) {
+        if (!(event.getEntity() instanceof Player player)) return;
 
-            ItemStack helmet = player.getInventory().getHelmet();
-            int newModelId = -1;
+        int sources = settings.emitterSources() & (EmitterSource.MAIN_HAND.bit() | EmitterSource.OFF_HAND.bit());
+        if (sources != 0 && itemLights.glows(event.getItem().getItemStack())) {
+            runForPlayer(player, () -> refreshSources(player, sources), 1L);
+        }
+    }
+
+    /**
+     * Liest die Quellen der Bitmaske aus dem Inventar des Spielers (Aufruf auf dem Thread des Spielers).
+     * Pro Quelle ist das genau ein Slot, gelesen wird nur der Fingerabdruck statt einer ItemMeta-Kopie.
+     */
+    private void refreshSources(Player player, int sources) {
+        if (!player.isOnline() || engine == null) return;
+
+        int configured = settings.emitterSources();
+        int[] fingerprints = new int[EmitterSource.COUNT];
+        for (int i = 0; i < EmitterSource.COUNT; i++) {
+            EmitterSource source = EmitterSource.byOrdinal(i);
+            if ((sources & source.bit()) == 0 || source.slot() == null) continue;
+            // Nicht konfigurierte Quellen gelten als leer
+            fingerprints[i] = (configured & source.bit()) != 0
+                    ? ItemLights.fingerprint(player.getInventory().getItem(source.slot()))
+                    : ItemLights.NONE;
+        }
+        updateSources(player, sources & EmitterSource.EQUIPMENT_MASK, fingerprints);
+    }
 
-            if (helmet != null && helmet.hasItemMeta() && helmet.getItemMeta().hasCustomModelData()) {
-                newModelId = helmet.getItemMeta().getCustomModelData();
+    /**
+     * Übernimmt neue Fingerabdrücke einzelner Quellen und pflegt den Emitter des Spielers:
+     * es leuchtet das hellste Item aller Quellen, ohne leuchtendes Item wird der Emitter entfernt
+     */
+    private void updateSources(Player player, int sources, int[] fingerprints) {
+        if (!player.isOnline()) return;
+
+        ItemLights lights = itemLights;
+        runLight(current -> {
+            try {
+                // Das neue Licht wird durch den nächsten Durchlauf gesetzt
+                current.updateSources(player, sources, fingerprints, lights);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Fehler beim Behandeln von Item-Änderung für " + player.getName() + ": " + e.getMessage());
             }
+        });
+    }
 
-            int oldModelId = lastModelId.getOrDefault(player.getUniqueId(), -2);
+    /**
+     * Startet und stoppt den eigenen Task eines Emitters, sobald die Engine ihn anlegt oder entfernt
+     */
+    private final class EmitterTasks implements LightEngine.EmitterListener {
+        @Override
+        public void added(EmitterState state) {
+            startEmitterTask(state);
+            plugin.getLogger().fine("Leuchtendes Item für " + state.entity.getName() + " erkannt: ModelID " + state.modelId);
+        }
 
-            // Wenn sich das Helmet geändert hat
-            if (oldModelId != newModelId) {
-                lastModelId.put(player.getUniqueId(), newModelId);
+        @Override
+        public void removed(EmitterState state) {
+            stopEmitterTask(state);
+            plugin.getLogger().fine("Kein leuchtendes Item mehr bei " + state.entity.getName() + ", Emitter entfernt");
+        }
+    }
 
-                // Wenn das neue Helmet kein Licht erzeugt oder kein Helmet vorhanden
-                if (!modelIdToLightLevel.containsKey(newModelId)) {
-                    if (removeAllOnHelmetOff) {
-                        removeAllLightBlocks(player);
-                        plugin.getLogger().fine("Alle Lichtblöcke für " + player.getName() + " entfernt (Helmet abgenommen)");
-                    }
-                } else {
-                    plugin.getLogger().fine("Light-Helmet für " + player.getName() + " erkannt: ModelID " + newModelId);
-                }
-                // Ansonsten wird das neue Licht durch den normalen Task-Loop gesetzt
-            }
-        } catch (Exception e) {
-            plugin.getLogger().warning("Fehler beim Behandeln von Helmet-Änderung für " + player.getName() + ": " + e.getMessage());
+    /**
+     * Erzwingt eine Neuberechnung der Lichtposition beim nächsten Tick
+     */
+    private void invalidateEmitterPosition(Player player) {
+        int entityId = player.getEntityId();
+        runLight(current -> current.invalidate(entityId));
+    }
+
+    /**
+     * Event Handler: Rüstungswechsel - Erfasst jede Änderung eines Rüstungsslots (auch durch Befehle oder Plugins)
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerArmorChange(PlayerArmorChangeEvent event) {
+        EmitterSource source = switch (event.getSlotType()) {
+            case HEAD -> EmitterSource.HEAD;
+            case CHEST -> EmitterSource.CHEST;
+            case LEGS -> EmitterSource.LEGS;
+            case FEET -> EmitterSource.FEET;
+        };
+        if (!settings.hasSource(source)) return;
+
+        // Das neue Item liefert das Event direkt - kein Lesen des Inventars nötig
+        int[] fingerprints = new int[EmitterSource.COUNT];
+        fingerprints[source.ordinal()] = ItemLights.fingerprint(event.getNewItem());
+        updateSources(event.getPlayer(), source.bit(), fingerprints);
+    }
+
+    /**
+     * Event Handler: Dispenser legt Rüstung an
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDispenseArmor(BlockDispenseArmorEvent event) {
+        if (!(event.getTargetEntity() instanceof Player)) return;
+
+        Player player = (Player) event.getTargetEntity();
+        // Das Item wird erst nach dem Event angelegt
+        runForPlayer(player, () -> refreshSources(player, EmitterSource.ARMOR_MASK), 1L);
+    }
+
+    /**
+     * Event Handler: Spieler betritt den Server
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        refreshSources(event.getPlayer(), EmitterSource.EQUIPMENT_MASK);
+    }
+
+    /**
+     * Event Handler: Respawn - leuchtende Items können beim Tod verloren gegangen sein
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        Player player = event.getPlayer();
+        runForPlayer(player, () -> {
+            refreshSources(player, EmitterSource.EQUIPMENT_MASK);
+            invalidateEmitterPosition(player);
+        }, 1L);
+    }
+
+    /**
+     * Event Handler: Chunk wurde an einen Spieler gesendet - virtuelle Lichter darin nachschicken
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChunkLoad(PlayerChunkLoadEvent event) {
+        if (virtualView != null) {
+            virtualView.resend(event.getPlayer(), event.getChunk());
         }
     }
 
+    /**
+     * Event Handler: Chunk geladen - zurückgestellte Lichtblöcke setzen und verwaiste aus einem vorherigen Lauf entfernen
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        // Ohne vorgemerkte Blöcke kostet das Event nur diese Checks
+        if (!deferredLights.isEmpty()) {
+            restoreDeferredChunk(event.getChunk());
+        }
+        if (orphanLights.isEmpty() || event.isNewChunk()) return;
+        cleanOrphanChunk(event.getChunk());
+    }
+
+    /**
+     * Setzt Lichtblöcke, die beim Schreiben in einem entladenen Chunk lagen, sofern ein Emitter sie noch hält
+     */
+    private void restoreDeferredChunk(Chunk chunk) {
+        LightEngine current = engine;
+        if (current == null) return;
+        World world = chunk.getWorld();
+        LongIntOpenMap keys = deferredLights.take(world.getUID(), chunk.getX(), chunk.getZ());
+        if (keys == null) return;
+        int worldId = current.worldIds().idOf(world);
+        runLight(light -> light.restoreOwned(worldId, keys));
+    }
+
     /**
      * Event Handler: Weltenwechsel - Entfernt alle Lichtblöcke des Spielers
      */
@@ -451,6 +929,7 @@ public class CustomLightModule extends AddonModule implements Listener {
         Player player = event.getPlayer();
         plugin.getLogger().info("Spieler " + player.getName() + " hat die Welt gewechselt. Entferne alle Lichtblöcke.");
         removeAllLightBlocks(player);
+        invalidateEmitterPosition(player);
     }
 
     /**
@@ -458,10 +937,34 @@ public class CustomLightModule extends AddonModule implements Listener {
      */
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
-        Player player = event.getPlayer();
-        removeAllLightBlocks(player);
-        // Cleanup der Maps
-        lastModelId.remove(player.getUniqueId());
-        lastLocationKey.remove(player.getUniqueId());
+        int entityId = event.getPlayer().getEntityId();
+        // Lichtblöcke und Emitter des Spielers entfernen
+        runLight(current -> current.removeEmitter(entityId, true));
+    }
+
+    /**
+     * Event Handler: Entity kommt in die Welt (Drop, Spawn oder Chunk geladen) - leuchtende Items werden Emitter
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityAddToWorld(EntityAddToWorldEvent event) {
+        if (!(event.getEntity() instanceof Item item) || engine == null) return;
+        if (!settings.hasSource(EmitterSource.DROPPED)) return;
+
+        int fingerprint = ItemLights.fingerprint(item.getItemStack());
+        int level = itemLights.levelOf(fingerprint);
+        if (level < 0) return;
+
+        runLight(current -> current.addDropped(item, fingerprint, level));
+    }
+
+    /**
+     * Event Handler: Entity verlässt die Welt (aufgehoben, verschmolzen, despawnt oder Chunk entladen)
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityRemoveFromWorld(EntityRemoveFromWorldEvent event) {
+        if (!(event.getEntity() instanceof Item)) return;
+
+        int entityId = event.getEntity().getEntityId();
+        runLight(current -> current.removeEmitter(entityId, true));
     }
 }
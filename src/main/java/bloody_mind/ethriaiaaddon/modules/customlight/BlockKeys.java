@@ -0,0 +1,48 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+/**
+ * Packt Blockkoordinaten in einen einzelnen long (gleiches Layout wie Paper's Block#getBlockKey)
+ */
+public final class BlockKeys {
+
+    private BlockKeys() {
+    }
+
+    /**
+     * Packt x/y/z in einen long (x, z: 27 Bit, y: 10 Bit)
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) x & 0x7FFFFFFL) | (((long) z & 0x7FFFFFFL) << 27) | ((long) y << 54);
+    }
+
+    public static int x(long key) {
+        return (int) ((key << 37) >> 37);
+    }
+
+    public static int y(long key) {
+        return (int) (key >> 54);
+    }
+
+    public static int z(long key) {
+        return (int) ((key << 10) >> 37);
+    }
+
+    /**
+     * Chunk-Schlüssel des Blocks (gleiches Layout wie Paper's Chunk#getChunkKey)
+     */
+    public static long chunkKeyOf(long key) {
+        return chunkKey(x(key) >> 4, z(key) >> 4);
+    }
+
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX & 0xFFFFFFFFL) | (((long) chunkZ & 0xFFFFFFFFL) << 32);
+    }
+
+    public static int chunkX(long chunkKey) {
+        return (int) chunkKey;
+    }
+
+    public static int chunkZ(long chunkKey) {
+        return (int) (chunkKey >>> 32);
+    }
+}
@@ -0,0 +1,150 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Typisierte Sicht auf die customlight.yml, wird einmal pro Reload auf dem Async-Thread erzeugt
+ *
+ * @param lightLevels  ModelID -> Lichtstärke (0-15)
+ * @param itemShapes   ModelID -> Lichtform, falls abweichend von defaultShape
+ * @param defaultShape Lichtform aller übrigen leuchtenden Items
+ * @param emitterSources Bitmaske der {@link EmitterSource}s, aus denen leuchtende Items gelesen werden
+ * @param fastSpeed    ab dieser Geschwindigkeit (Blöcke pro Tick) wird das Licht vorausschauend gesetzt
+ */
+public record CustomLightSettings(Map<Integer, Integer> lightLevels, Map<Integer, LightShape> itemShapes,
+                                  LightShape defaultShape, int emitterSources, int removalRadius, int updateInterval,
+                                  boolean removeAllOnHelmetOff, int maxLightBlocksPerPlayer,
+                                  double tickBudgetMillis, boolean movementPrediction, double fastSpeed,
+                                  boolean virtual) {
+
+    /**
+     * Standardwerte, solange noch keine customlight.yml gelesen wurde
+     */
+    public static CustomLightSettings defaults() {
+        return new CustomLightSettings(Map.of(), Map.of(), LightShape.POINT, EmitterSource.HEAD.bit(), 10, 1, true, 3, 0.5, true, 0.4,
+                false);
+    }
+
+    /**
+     * Lichtform eines leuchtenden Items
+     */
+    public LightShape shapeFor(int modelId) {
+        return itemShapes.getOrDefault(modelId, defaultShape);
+    }
+
+    public boolean hasSource(EmitterSource source) {
+        return (emitterSources & source.bit()) != 0;
+    }
+
+    public static CustomLightSettings from(ConfigurationSection config, Logger logger) {
+        Map<String, LightShape> shapes = parseShapes(config.getConfigurationSection("light-shapes"), logger);
+        String defaultName = config.getString("default-shape", "point");
+        LightShape defaultShape = shapes.get(defaultName);
+        if (defaultShape == null) {
+            logger.warning("Unbekannte default-shape '" + defaultName + "' in CustomLight-Konfiguration, verwende point");
+            defaultShape = LightShape.POINT;
+        }
+
+        Map<Integer, Integer> levels = new HashMap<>();
+        Map<Integer, LightShape> itemShapes = new HashMap<>();
+        ConfigurationSection items = config.getConfigurationSection("glowing_items");
+        if (items != null) {
+            for (String key : items.getKeys(false)) {
+                try {
+                    int id = Integer.parseInt(key);
+                    // Kurzform "ModelID: Level" oder Abschnitt mit level und shape
+                    ConfigurationSection item = items.getConfigurationSection(key);
+                    int level = item != null ? item.getInt("level", 15) : items.getInt(key);
+                    if (level >= 0 && level <= 15) {
+                        levels.put(id, level);
+                    } else {
+                        logger.warning("Ungültige Lichtstärke für ModelID " + key + " in CustomLight-Konfiguration: " + level);
+                        continue;
+                    }
+
+                    String shapeName = item != null ? item.getString("shape") : null;
+                    if (shapeName != null) {
+                        LightShape shape = shapes.get(shapeName);
+                        if (shape != null) {
+                            itemShapes.put(id, shape);
+                        } else {
+                            logger.warning("Unbekannte Lichtform '" + shapeName + "' für ModelID " + key + " in CustomLight-Konfiguration");
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                    logger.warning("Ungültige ModelID in CustomLight-Konfiguration: " + key);
+                }
+            }
+        }
+
+        // Ohne Angabe wie bisher nur der Helm
+        int sources = 0;
+        List<String> sourceNames = config.isList("emitter-sources") ? config.getStringList("emitter-sources") : List.of("head");
+        for (String name : sourceNames) {
+            EmitterSource source = EmitterSource.parse(name);
+            if (source != null) {
+                sources |= source.bit();
+            } else {
+                logger.warning("Unbekannte emitter-source '" + name + "' in CustomLight-Konfiguration "
+                        + "(head, chest, legs, feet, main-hand, off-hand, dropped)");
+            }
+        }
+
+        String lightMode = config.getString("light-mode", "world");
+        if (!"world".equalsIgnoreCase(lightMode) && !"virtual".equalsIgnoreCase(lightMode)) {
+            logger.warning("Unbekannter light-mode '" + lightMode + "' in CustomLight-Konfiguration, verwende world");
+        }
+
+        return new CustomLightSettings(
+                Map.copyOf(levels),
+                Map.copyOf(itemShapes),
+                defaultShape,
+                sources,
+                Math.max(0, config.getInt("radius", 10)),
+                Math.max(1, config.getInt("update-interval", 1)),
+                config.getBoolean("remove-all-on-helmet-off", true),
+                Math.max(1, config.getInt("max-light-blocks-per-player", 3)),
+                Math.max(0, config.getDouble("tick-budget-ms", 0.5)),
+                config.getBoolean("movement-prediction", true),
+                Math.max(0.1, config.getDouble("fast-speed", 0.4)),
+                "virtual".equalsIgnoreCase(lightMode));
+    }
+
+    /**
+     * Kompiliert alle Lichtformen aus light-shapes; "point" ist immer vorhanden
+     */
+    private static Map<String, LightShape> parseShapes(ConfigurationSection section, Logger logger) {
+        Map<String, LightShape> shapes = new HashMap<>();
+        shapes.put(LightShape.POINT.name(), LightShape.POINT);
+        if (section == null) return shapes;
+
+        for (String name : section.getKeys(false)) {
+            ConfigurationSection shape = section.getConfigurationSection(name);
+            if (shape == null) {
+                logger.warning("Lichtform '" + name + "' in CustomLight-Konfiguration ist kein Abschnitt");
+                continue;
+            }
+            LightShape.Type type = LightShape.Type.parse(shape.getString("type"));
+            if (type == null) {
+                logger.warning("Unbekannter Typ '" + shape.getString("type") + "' für Lichtform '" + name
+                        + "' in CustomLight-Konfiguration (point, cross, sphere, cone)");
+                continue;
+            }
+            int radius = shape.getInt("radius", 1);
+            if (radius < 0 || radius > LightShape.MAX_RADIUS) {
+                logger.warning("Radius der Lichtform '" + name + "' muss zwischen 0 und " + LightShape.MAX_RADIUS + " liegen: " + radius);
+            }
+            LightShape compiled = LightShape.compile(name, type, radius, shape.getInt("falloff", 3), shape.getInt("angle", 60));
+            if (compiled.truncated()) {
+                logger.warning("Lichtform '" + name + "' auf die hellsten " + LightShape.MAX_CELLS + " Blöcke gekürzt");
+            }
+            shapes.put(name, compiled);
+        }
+        return shapes;
+    }
+}
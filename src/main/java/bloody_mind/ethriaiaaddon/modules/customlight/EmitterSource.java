@@ -0,0 +1,89 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.bukkit.inventory.EquipmentSlot;
+
+import java.util.Locale;
+
+/**
+ * Woher ein leuchtendes Item kommen darf (emitter-sources in der customlight.yml).
+ * Jede Ausrüstungsquelle ist genau ein Slot und wird nur über die Events dieses Slots neu gelesen.
+ */
+public enum EmitterSource {
+    HEAD("head", EquipmentSlot.HEAD),
+    CHEST("chest", EquipmentSlot.CHEST),
+    LEGS("legs", EquipmentSlot.LEGS),
+    FEET("feet", EquipmentSlot.FEET),
+    MAIN_HAND("main-hand", EquipmentSlot.HAND),
+    OFF_HAND("off-hand", EquipmentSlot.OFF_HAND),
+    // Fallengelassene Items (eigener Emitter pro Item-Entity)
+    DROPPED("dropped", null);
+
+    public static final int COUNT = values().length;
+    // Alle Quellen, die ein Spieler am Körper trägt
+    public static final int EQUIPMENT_MASK = HEAD.bit() | CHEST.bit() | LEGS.bit() | FEET.bit() | MAIN_HAND.bit() | OFF_HAND.bit();
+    public static final int ARMOR_MASK = HEAD.bit() | CHEST.bit() | LEGS.bit() | FEET.bit();
+
+    private static final EmitterSource[] VALUES = values();
+
+    private final String configName;
+    private final EquipmentSlot slot;
+
+    EmitterSource(String configName, EquipmentSlot slot) {
+        this.configName = configName;
+        this.slot = slot;
+    }
+
+    public String configName() {
+        return configName;
+    }
+
+    /**
+     * Ausrüstungsslot der Quelle (null bei dropped)
+     */
+    public EquipmentSlot slot() {
+        return slot;
+    }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public static EmitterSource byOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Liest eine Quelle aus der Konfiguration (null wenn unbekannt); hand und offhand sind Kurzformen
+     */
+    public static EmitterSource parse(String name) {
+        if (name == null) return null;
+        String normalized = name.trim().toLowerCase(Locale.ROOT).replace('_', '-');
+        switch (normalized) {
+            case "helmet" -> normalized = "head";
+            case "hand", "mainhand" -> normalized = "main-hand";
+            case "offhand" -> normalized = "off-hand";
+            default -> {
+            }
+        }
+        for (EmitterSource source : VALUES) {
+            if (source.configName.equals(normalized)) {
+                return source;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Quelle eines Ausrüstungsslots (null für null und Slots ohne Quelle, z.B. Tierrüstung)
+     */
+    public static EmitterSource of(EquipmentSlot slot) {
+        // dropped hat ebenfalls keinen Slot und darf hier nicht gefunden werden
+        if (slot == null) return null;
+        for (EmitterSource source : VALUES) {
+            if (source.slot == slot) {
+                return source;
+            }
+        }
+        return null;
+    }
+}
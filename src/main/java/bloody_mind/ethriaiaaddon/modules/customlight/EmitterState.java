@@ -0,0 +1,170 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+
+import java.util.Arrays;
+
+/**
+ * Kompakter Zustand eines aktiven Licht-Emitters: ein Spieler mit mindestens einem leuchtenden Item
+ * in einer seiner Quellen oder ein leuchtendes fallengelassenes Item
+ */
+public final class EmitterState {
+
+    public static final int NO_WORLD = -1;
+
+    // Anteil der neuen Messung an der geglätteten Geschwindigkeit
+    private static final double VELOCITY_SMOOTHING = 0.5;
+    // Größere Sprünge pro Tick sind Teleports und keine Bewegung
+    private static final double TELEPORT_DISTANCE = 8.0;
+    private static final double NANOS_PER_TICK = 50_000_000.0;
+
+    public final Entity entity;
+    public final int entityId;
+    // Höhe des Lichts über der Blockposition der Entity (Spieler: über dem Kopf, Items: auf dem Item)
+    public final int lightHeight;
+    public int modelId;
+    public int lightLevel;
+    public LightShape shape;
+    // Zuletzt verarbeitete Lichtposition
+    public int worldId = NO_WORLD;
+    public long blockKey;
+    // Blickrichtung der zuletzt angewendeten Form (nur bei gerichteten Formen relevant)
+    public int facing;
+    // Section, unter der der Emitter im SpatialIndex eingetragen ist
+    public int indexedWorldId = NO_WORLD;
+    public long indexedSection;
+    // Geglättete Geschwindigkeit in Blöcken pro Tick (aus den Positionsabfragen, nicht Player#getVelocity)
+    public double velocityX;
+    public double velocityY;
+    public double velocityZ;
+    private int sampleWorldId = NO_WORLD;
+    private double sampleX;
+    private double sampleY;
+    private double sampleZ;
+    private long sampleNanos;
+    // Spielerposition bei der letzten vorausschauenden Platzierung
+    private double placedX;
+    private double placedY;
+    private double placedZ;
+    // Wiederverwendete Location für die Positionsabfrage (eigene pro Emitter, da unter Folia parallel)
+    public final Location scratch = new Location(null, 0, 0, 0);
+    // Zuletzt gelesener Fingerabdruck pro Quelle (ItemLights.NONE = leer oder ohne CustomModelData)
+    public final int[] sourceFingerprints = new int[EmitterSource.COUNT];
+    // Folia: eigener Task auf dem Entity-Scheduler der Entity
+    public ScheduledTask task;
+    // Von der Engine gesetzt (neues Item, Weltwechsel), von der nächsten Positionsabfrage auf dem Thread der Entity verbraucht
+    private volatile boolean invalidated;
+
+    public EmitterState(Entity entity, int modelId, int lightLevel, LightShape shape) {
+        this(entity, modelId, lightLevel, shape, 2);
+    }
+
+    public EmitterState(Entity entity, int modelId, int lightLevel, LightShape shape, int lightHeight) {
+        this.entity = entity;
+        this.entityId = entity.getEntityId();
+        this.modelId = modelId;
+        this.lightLevel = lightLevel;
+        this.shape = shape;
+        this.lightHeight = lightHeight;
+        Arrays.fill(sourceFingerprints, ItemLights.NONE);
+    }
+
+    /**
+     * Prüft ob sich die Position geändert hat und übernimmt sie ggf.
+     */
+    public boolean moveTo(int worldId, long blockKey) {
+        return moveTo(worldId, blockKey, facing);
+    }
+
+    /**
+     * Prüft ob sich Position oder Blickrichtung geändert haben und übernimmt sie ggf.
+     */
+    public boolean moveTo(int worldId, long blockKey, int facing) {
+        if (this.worldId == worldId && this.blockKey == blockKey && this.facing == facing) {
+            return false;
+        }
+        this.worldId = worldId;
+        this.blockKey = blockKey;
+        this.facing = facing;
+        return true;
+    }
+
+    /**
+     * Übernimmt eine neue Positionsabfrage und aktualisiert die Geschwindigkeit.
+     * Gemessen wird über die echte Zeit, da es unter Folia keinen globalen Tick-Zähler gibt.
+     *
+     * @return Geschwindigkeit in Blöcken pro Tick
+     */
+    public double sampleMotion(int worldId, double x, double y, double z, long nanos) {
+        double ticks = (nanos - sampleNanos) / NANOS_PER_TICK;
+        if (sampleWorldId == worldId && ticks >= 0.5) {
+            double dx = x - sampleX;
+            double dy = y - sampleY;
+            double dz = z - sampleZ;
+            if (dx * dx + dy * dy + dz * dz > TELEPORT_DISTANCE * TELEPORT_DISTANCE * ticks * ticks) {
+                velocityX = 0;
+                velocityY = 0;
+                velocityZ = 0;
+            } else {
+                velocityX += (dx / ticks - velocityX) * VELOCITY_SMOOTHING;
+                velocityY += (dy / ticks - velocityY) * VELOCITY_SMOOTHING;
+                velocityZ += (dz / ticks - velocityZ) * VELOCITY_SMOOTHING;
+            }
+        } else if (sampleWorldId != worldId) {
+            velocityX = 0;
+            velocityY = 0;
+            velocityZ = 0;
+        } else {
+            // Zweite Abfrage im selben Tick: Geschwindigkeit beibehalten
+            return speed();
+        }
+        sampleWorldId = worldId;
+        sampleX = x;
+        sampleY = y;
+        sampleZ = z;
+        sampleNanos = nanos;
+        return speed();
+    }
+
+    public double speed() {
+        return Math.sqrt(velocityX * velocityX + velocityY * velocityY + velocityZ * velocityZ);
+    }
+
+    /**
+     * Quadrierte Strecke seit der letzten vorausschauenden Platzierung
+     */
+    public double travelledSquared(double x, double y, double z) {
+        double dx = x - placedX;
+        double dy = y - placedY;
+        double dz = z - placedZ;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    public void markPlaced(double x, double y, double z) {
+        placedX = x;
+        placedY = y;
+        placedZ = z;
+    }
+
+    /**
+     * Erzwingt eine Neuberechnung beim nächsten Tick (von jedem Thread aus; Level und Form vorher setzen)
+     */
+    public void invalidatePosition() {
+        invalidated = true;
+    }
+
+    /**
+     * Übernimmt eine angeforderte Neuberechnung: die bisherige Position gilt danach als unbekannt.
+     * Aufruf vor dem Lesen von Level und Form, damit die Werte zur Anforderung passen.
+     *
+     * @return true wenn eine Neuberechnung angefordert war
+     */
+    public boolean takeInvalidation() {
+        if (!invalidated) return false;
+        invalidated = false;
+        worldId = NO_WORLD;
+        return true;
+    }
+}
@@ -0,0 +1,60 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import io.papermc.paper.datacomponent.DataComponentTypes;
+import io.papermc.paper.datacomponent.item.CustomModelData;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lichtstärke pro Item, einmal pro Konfiguration aus glowing_items aufgebaut (danach nur gelesen).
+ * Der Fingerabdruck eines Items ist seine CustomModelData - gelesen direkt aus der Datenkomponente,
+ * ohne die komplette ItemMeta zu kopieren wie bei getItemMeta().
+ */
+public final class ItemLights {
+
+    /**
+     * Fingerabdruck eines Items ohne CustomModelData (oder eines leeren Slots)
+     */
+    public static final int NONE = Integer.MIN_VALUE;
+
+    // ModelID -> Lichtstärke + 1 (0 = leuchtet nicht)
+    private final LongIntOpenMap levels;
+
+    public ItemLights(Map<Integer, Integer> lightLevels) {
+        this.levels = new LongIntOpenMap(Math.max(4, lightLevels.size()));
+        for (Map.Entry<Integer, Integer> entry : lightLevels.entrySet()) {
+            levels.put(entry.getKey(), entry.getValue() + 1);
+        }
+    }
+
+    /**
+     * Fingerabdruck eines Items: die (erste) CustomModelData wie ItemMeta#getCustomModelData, sonst {@link #NONE}
+     */
+    public static int fingerprint(ItemStack item) {
+        if (item == null || item.isEmpty()) return NONE;
+        CustomModelData data = item.getData(DataComponentTypes.CUSTOM_MODEL_DATA);
+        if (data == null) return NONE;
+        List<Float> floats = data.floats();
+        return floats.isEmpty() ? NONE : (int) (float) floats.get(0);
+    }
+
+    /**
+     * Lichtstärke zu einem Fingerabdruck (-1 wenn das Item nicht leuchtet)
+     */
+    public int levelOf(int fingerprint) {
+        return fingerprint == NONE ? -1 : levels.get(fingerprint) - 1;
+    }
+
+    /**
+     * Lichtstärke eines Items (-1 wenn es nicht leuchtet)
+     */
+    public int levelOf(ItemStack item) {
+        return levelOf(fingerprint(item));
+    }
+
+    public boolean glows(ItemStack item) {
+        return levelOf(item) >= 0;
+    }
+}
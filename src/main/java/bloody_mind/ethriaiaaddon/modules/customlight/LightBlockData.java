@@ -0,0 +1,33 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Levelled;
+
+/**
+ * Einmalig erzeugte BlockData für alle Lichtlevel (0-15) und Luft
+ */
+public final class LightBlockData {
+
+    private final BlockData[] lightData = new BlockData[16];
+    private final BlockData airData;
+
+    public LightBlockData() {
+        for (int level = 0; level < lightData.length; level++) {
+            BlockData data = Material.LIGHT.createBlockData();
+            if (data instanceof Levelled) {
+                ((Levelled) data).setLevel(level);
+            }
+            lightData[level] = data;
+        }
+        airData = Material.AIR.createBlockData();
+    }
+
+    public BlockData light(int level) {
+        return lightData[Math.max(0, Math.min(15, level))];
+    }
+
+    public BlockData air() {
+        return airData;
+    }
+}
@@ -0,0 +1,283 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import java.util.Arrays;
+
+/**
+ * Verwaltet alle gesetzten Lichtblöcke als gepackte Blockschlüssel pro Welt.
+ * Alle Besitzer teilen sich ein {@link LightField} pro Welt: wirksam ist das höchste angeforderte Level einer Position,
+ * geschrieben wird nur, wenn es sich ändert, und entfernt erst, wenn der letzte Besitzer die Position freigibt.
+ * Pro Besitzer werden die letzten Lichtformen ({@link LightShape}) in einem {@link LightRing} gehalten.
+ */
+public final class LightBlockRegistry {
+
+    /**
+     * Wird für jeden Block aufgerufen, der keinen Besitzer mehr hat und aus der Welt entfernt werden muss
+     */
+    @FunctionalInterface
+    public interface Remover {
+        void remove(int worldId, long key);
+    }
+
+    /**
+     * Wird für jeden Block aufgerufen, der neu gesetzt oder mit geändertem wirksamen Level neu geschrieben werden muss
+     */
+    @FunctionalInterface
+    public interface Placer {
+        /**
+         * @param existing true wenn an der Position bereits ein Lichtblock steht
+         */
+        void place(int worldId, long key, int level, boolean existing);
+    }
+
+    private final Placer placer;
+    private final Remover remover;
+    // Welt-ID -> gemeinsames Lichtfeld aller Besitzer
+    private LightField[] fields = new LightField[4];
+    // Besitzer (Entity-ID) -> eigene Lichtformen und Blöcke
+    private final IntObjectOpenMap<LightRing> rings = new IntObjectOpenMap<>();
+
+    /**
+     * @param placer  erhält jede Änderung des wirksamen Levels einer Position
+     * @param remover erhält jede Position, die keinen Besitzer mehr hat
+     */
+    public LightBlockRegistry(Placer placer, Remover remover) {
+        this.placer = placer;
+        this.remover = remover;
+    }
+
+    private LightField fieldOf(int worldId) {
+        if (worldId >= fields.length) {
+            fields = Arrays.copyOf(fields, Math.max(worldId + 1, fields.length * 2));
+        }
+        LightField field = fields[worldId];
+        if (field == null) {
+            field = new LightField();
+            fields[worldId] = field;
+        }
+        return field;
+    }
+
+    /**
+     * Legt die Lichtform eines Besitzers an einem neuen Anker an. Geschrieben wird nur der Unterschied zu den
+     * bisherigen Formen: neue Blöcke und Blöcke mit geändertem Level. Blöcke, die in keiner Form mehr vorkommen,
+     * werden freigegeben, sobald ihre Form aus dem Ringpuffer (maxShapes) fällt.
+     */
+    public void apply(int owner, int worldId, long anchor, LightShape shape, int facing, int level, int maxShapes) {
+        LightRing ring = rings.get(owner);
+        if (ring == null || ring.capacity() != Math.max(1, maxShapes)) {
+            ring = resize(owner, ring, maxShapes);
+        }
+        // Weltwechsel: alte Formen zuerst freigeben, die Block-Zählung gilt immer für eine Welt
+        if (!ring.isEmpty() && ring.cellWorldId() != worldId) {
+            evict(ring, ring.size());
+        }
+
+        int stencil = shape.stencil(facing);
+        ring.add(worldId, anchor, shape, stencil, level);
+        ring.setCellWorldId(worldId);
+
+        LongIntOpenMap cells = ring.cells();
+        LightField field = fieldOf(worldId);
+        for (int i = 0; i < shape.size(); i++) {
+            int cellLevel = shape.levelAt(stencil, i, level);
+            if (cellLevel == 0) continue;
+            long key = shape.keyAt(stencil, i, anchor);
+            int cell = cells.get(key);
+            if (cell == 0) {
+                cells.put(key, LightRing.cell(1, cellLevel));
+                field.acquire(key, cellLevel);
+                publish(worldId, key, field);
+            } else {
+                cells.put(key, LightRing.cell(LightRing.count(cell) + 1, cellLevel));
+                if (LightRing.level(cell) != cellLevel) {
+                    field.change(key, LightRing.level(cell), cellLevel);
+                    publish(worldId, key, field);
+                }
+            }
+        }
+
+        // Erst jetzt die älteste Form verdrängen - Blöcke, die beide enthalten, bleiben unberührt
+        if (ring.size() > ring.capacity()) {
+            evict(ring, ring.size() - ring.capacity());
+        }
+    }
+
+    /**
+     * Gibt das Ergebnis der letzten Änderung am Lichtfeld weiter, falls sich das wirksame Level geändert hat
+     */
+    private void publish(int worldId, long key, LightField field) {
+        int previous = field.previousLevel();
+        int current = field.currentLevel();
+        if (previous == current) return;
+        if (current == 0) {
+            remover.remove(worldId, key);
+        } else {
+            placer.place(worldId, key, current, previous != 0);
+        }
+    }
+
+    /**
+     * Passt den Ringpuffer an eine geänderte Maximalanzahl an (die ältesten Formen werden freigegeben)
+     */
+    private LightRing resize(int owner, LightRing old, int maxShapes) {
+        LightRing ring = new LightRing(maxShapes);
+        if (old != null) {
+            evict(old, Math.max(0, old.size() - ring.capacity()));
+            for (int i = 0; i < old.size(); i++) {
+                ring.add(old.worldIdAt(i), old.anchorAt(i), old.shapeAt(i), old.stencilAt(i), old.levelAt(i));
+            }
+            // Die Block-Zählung bleibt gleich, nur der Puffer wird ausgetauscht
+            LongIntOpenMap cells = old.cells();
+            for (int slot = 0; slot < cells.capacity(); slot++) {
+                if (cells.valueAt(slot) != 0) {
+                    ring.cells().put(cells.keyAt(slot), cells.valueAt(slot));
+                }
+            }
+            ring.setCellWorldId(old.cellWorldId());
+        }
+        rings.put(owner, ring);
+        return ring;
+    }
+
+    /**
+     * Entfernt die count ältesten Formen
+     */
+    private void evict(LightRing ring, int count) {
+        for (int i = 0; i < count; i++) {
+            release(ring, 0);
+        }
+    }
+
+    /**
+     * Nimmt die Form am Index aus dem Puffer und gibt ihre Blöcke frei, die in keiner anderen Form mehr vorkommen
+     */
+    private void release(LightRing ring, int index) {
+        int worldId = ring.worldIdAt(index);
+        long anchor = ring.anchorAt(index);
+        LightShape shape = ring.shapeAt(index);
+        int stencil = ring.stencilAt(index);
+        int level = ring.levelAt(index);
+        ring.removeAt(index);
+
+        LongIntOpenMap cells = ring.cells();
+        LightField field = fieldOf(worldId);
+        for (int i = 0; i < shape.size(); i++) {
+            if (shape.levelAt(stencil, i, level) == 0) continue;
+            long key = shape.keyAt(stencil, i, anchor);
+            int cell = cells.get(key);
+            if (cell == 0) continue;
+            if (LightRing.count(cell) > 1) {
+                cells.put(key, LightRing.cell(LightRing.count(cell) - 1, LightRing.level(cell)));
+            } else {
+                cells.remove(key);
+                field.release(key, LightRing.level(cell));
+                publish(worldId, key, field);
+            }
+        }
+    }
+
+    /**
+     * Gibt alle Formen des Besitzers frei, deren Anker in einer anderen Welt oder weiter als radius entfernt liegt
+     */
+    public void removeDistant(int owner, int worldId, long center, int radius) {
+        LightRing ring = rings.get(owner);
+        if (ring == null) return;
+
+        int cx = BlockKeys.x(center);
+        int cy = BlockKeys.y(center);
+        int cz = BlockKeys.z(center);
+        long radiusSquared = (long) radius * radius;
+
+        int i = 0;
+        while (i < ring.size()) {
+            long anchor = ring.anchorAt(i);
+            boolean distant = ring.worldIdAt(i) != worldId;
+            if (!distant) {
+                long dx = BlockKeys.x(anchor) - cx;
+                long dy = BlockKeys.y(anchor) - cy;
+                long dz = BlockKeys.z(anchor) - cz;
+                distant = dx * dx + dy * dy + dz * dz > radiusSquared;
+            }
+            if (distant) {
+                release(ring, i);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Gibt die ältesten Formen frei, bis der Besitzer höchstens maxShapes besitzt
+     */
+    public void trim(int owner, int maxShapes) {
+        LightRing ring = rings.get(owner);
+        if (ring != null && ring.size() > maxShapes) {
+            // Nur verdrängen, die Kapazität bleibt für die nächste Form erhalten
+            evict(ring, ring.size() - Math.max(1, maxShapes));
+        }
+    }
+
+    /**
+     * Gibt alle Blöcke eines Besitzers frei. Von anderen Besitzern gehaltene Blöcke bleiben stehen
+     * und fallen höchstens auf deren Level zurück.
+     */
+    public void removeAll(int owner) {
+        LightRing ring = rings.remove(owner);
+        if (ring == null) return;
+        int worldId = ring.cellWorldId();
+        if (worldId < 0) return;
+        LightField field = fieldOf(worldId);
+        LongIntOpenMap cells = ring.cells();
+        for (int slot = 0; slot < cells.capacity(); slot++) {
+            int cell = cells.valueAt(slot);
+            if (cell != 0) {
+                field.release(cells.keyAt(slot), LightRing.level(cell));
+                publish(worldId, cells.keyAt(slot), field);
+            }
+        }
+    }
+
+    /**
+     * Entfernt alle registrierten Blöcke aller Besitzer
+     */
+    public void clear() {
+        for (int worldId = 0; worldId < fields.length; worldId++) {
+            LightField field = fields[worldId];
+            if (field == null) continue;
+            for (int slot = 0; slot < field.capacity(); slot++) {
+                if (field.isOccupied(slot)) {
+                    remover.remove(worldId, field.keyAt(slot));
+                }
+            }
+            field.clear();
+        }
+        rings.clear();
+    }
+
+    /**
+     * Prüft ob der Block von mindestens einem Besitzer gehalten wird
+     */
+    public boolean isOwned(int worldId, long key) {
+        return worldId >= 0 && worldId < fields.length && fields[worldId] != null && fields[worldId].contains(key);
+    }
+
+    /**
+     * Wirksames Level eines Blocks (0 wenn kein Besitzer)
+     */
+    public int levelOf(int worldId, long key) {
+        return worldId >= 0 && worldId < fields.length && fields[worldId] != null ? fields[worldId].levelOf(key) : 0;
+    }
+
+    /**
+     * Anzahl aller registrierten Lichtblöcke (verschiedene Positionen, nicht Besitzer)
+     */
+    public int size() {
+        int total = 0;
+        for (LightField field : fields) {
+            if (field != null) {
+                total += field.size();
+            }
+        }
+        return total;
+    }
+}
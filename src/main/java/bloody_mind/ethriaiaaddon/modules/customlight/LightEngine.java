@@ -0,0 +1,558 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Kern von CustomLight ohne Events und Scheduler: Emitter, gesetzte Lichtblöcke, räumlicher Index und Schreib-Queue.
+ * Das Modul ruft diese Methoden aus seinen Event-Handlern und Tasks auf, die Benchmarks rufen dieselben Methoden direkt.
+ * <p>
+ * Der Zustand gehört dem Thread, der {@link #tick} bzw. {@link #flush} aufruft (Paper: Main-Thread, Folia: globaler
+ * Region-Thread). Unter Folia fragen die Entity-Tasks nur ihre eigene Position ab ({@link #sampleEmitter}); Bewegungen
+ * und alle Änderungen aus Event-Handlern kommen über eine lock-freie Queue ({@link #post}), die der Flush abarbeitet.
+ * Kein Region-Thread wartet dabei auf einen anderen.
+ */
+public final class LightEngine {
+
+    /**
+     * Liest die aktuelle Position eines Emitters
+     */
+    @FunctionalInterface
+    public interface Locator {
+        /**
+         * Schreibt die Position der Entity in {@link EmitterState#scratch}
+         *
+         * @return Welt der Entity
+         */
+        World locate(EmitterState state);
+    }
+
+    /**
+     * Erfährt, wann ein Emitter hinzukommt oder wegfällt (z.B. für dessen eigenen Task unter Folia)
+     */
+    public interface EmitterListener {
+        void added(EmitterState state);
+
+        void removed(EmitterState state);
+    }
+
+    /**
+     * Position direkt von der Entity, in die wiederverwendete Location des Emitters
+     */
+    public static final Locator ENTITY_LOCATOR = state -> {
+        state.entity.getLocation(state.scratch);
+        return state.entity.getWorld();
+    };
+
+    // Schnelle Emitter: Abstand der Platzierungen = Geschwindigkeit (Blöcke pro Tick) * Ticks, begrenzt in Blöcken
+    private static final double FAST_SPACING_TICKS = 4.0;
+    private static final double MIN_FAST_SPACING = 2.0;
+    private static final double MAX_FAST_SPACING = 8.0;
+    // Höhenvorhersage begrenzen (Sprünge, Wellenflug), sonst landet das Licht im Boden
+    private static final double MAX_VERTICAL_LEAD = 2.0;
+    // Schnelle Emitter behalten nur die aktuelle und die vorherige Form
+    private static final int FAST_TRAIL = 2;
+    // Unbewegte Emitter bzw. übergebene Aufgaben zwischen zwei Budget-Prüfungen
+    private static final int BUDGET_CHECK_INTERVAL = 64;
+    // Ergebnis einer Positionsabfrage ohne Bewegung
+    private static final int NOT_MOVED = -1;
+
+    private final Locator locator;
+    private final EmitterListener listener;
+    private final LongAdder lightsPlaced;
+    private final LongAdder lightsRemoved;
+
+    private final WorldIds worldIds = new WorldIds();
+    // Alle gesetzten Lichtblöcke (gepackt pro Welt, geteilt zwischen Besitzern mit höchstem Level)
+    private final LightBlockRegistry registry = new LightBlockRegistry(this::placeLightBlock, this::removeLightBlock);
+    // Nur Entities mit leuchtendem Item (Entity-ID -> Zustand) - wird ausschließlich über Events gepflegt
+    private final IntObjectOpenMap<EmitterState> emitters = new IntObjectOpenMap<>();
+    // Emitter und wirksame Lichtblöcke nach Chunk-Section, für Abfragen in der Umgebung eines Blocks
+    private final SpatialIndex spatialIndex = new SpatialIndex();
+    // Blockänderungen, gebündelt pro Chunk geschrieben
+    private final LightWriteQueue writeQueue = new LightWriteQueue();
+    // Zeitbudget pro Durchlauf
+    private final TickBudget tickBudget = new TickBudget();
+    // Folia: Aufgaben anderer Threads für den Flush (viele Erzeuger, ein Verbraucher)
+    private final Queue<Runnable> handOff = new ConcurrentLinkedQueue<>();
+
+    private volatile CustomLightSettings settings = CustomLightSettings.defaults();
+    private int scanCursor;
+
+    /**
+     * @param placed  zählt neu gesetzte Lichtblöcke
+     * @param removed zählt entfernte Lichtblöcke
+     */
+    public LightEngine(Locator locator, EmitterListener listener, LongAdder placed, LongAdder removed) {
+        this.locator = locator;
+        this.listener = listener;
+        this.lightsPlaced = placed;
+        this.lightsRemoved = removed;
+    }
+
+    public void setSettings(CustomLightSettings settings) {
+        this.settings = settings;
+        tickBudget.setBudgetMillis(settings.tickBudgetMillis());
+    }
+
+    public CustomLightSettings settings() {
+        return settings;
+    }
+
+    public WorldIds worldIds() {
+        return worldIds;
+    }
+
+    /**
+     * Ein Durchlauf des Licht-Tasks: bewegte Emitter verarbeiten und Blockänderungen schreiben.
+     * Beides läuft innerhalb des Tick-Budgets; nicht verarbeitete Arbeit folgt im nächsten Durchlauf.
+     *
+     * @return Anzahl der geschriebenen Blöcke
+     */
+    public int tick(LightWriteQueue.ChunkWriter writer) {
+        tickBudget.start();
+        runHandOff();
+
+        // Nur aktive Emitter prüfen - Spieler ohne leuchtendes Item kosten hier nichts.
+        // Der Durchlauf beginnt dort, wo der letzte wegen des Budgets aufgehört hat.
+        int capacity = emitters.capacity();
+        int unchecked = 0;
+        for (int i = 0; i < capacity; i++) {
+            int slot = (scanCursor + i) % capacity;
+            EmitterState state = emitters.valueAt(slot);
+            if (state == null) continue;
+
+            // Nach jeder Bewegung prüfen, sonst alle BUDGET_CHECK_INTERVAL Emitter - auch reine Positionsabfragen kosten Zeit
+            if (updateEmitter(state) || ++unchecked == BUDGET_CHECK_INTERVAL) {
+                unchecked = 0;
+                if (tickBudget.exhausted()) {
+                    scanCursor = (slot + 1) % capacity;
+                    break;
+                }
+            }
+        }
+
+        // Änderungen nach Priorität schreiben: Entfernen, neue Lichter, Auffrischen
+        writeQueue.flush(worldIds, writer, tickBudget);
+        return writeQueue.lastFlushWrites();
+    }
+
+    /**
+     * Übernimmt übergebene Aufgaben und schreibt vorgemerkte Blockänderungen innerhalb des Tick-Budgets
+     * (Folia: die Emitter laufen über eigene Tasks)
+     *
+     * @return Anzahl der geschriebenen Blöcke
+     */
+    public int flush(LightWriteQueue.ChunkWriter writer) {
+        tickBudget.start();
+        runHandOff();
+        writeQueue.flush(worldIds, writer, tickBudget);
+        return writeQueue.lastFlushWrites();
+    }
+
+    /**
+     * Übergibt eine Aufgabe von einem beliebigen Thread an den nächsten {@link #flush} (ohne Lock)
+     */
+    public void post(Runnable action) {
+        handOff.offer(action);
+    }
+
+    /**
+     * Führt übergebene Aufgaben in Reihenfolge aus; was das Budget nicht schafft, folgt im nächsten Durchlauf
+     */
+    private void runHandOff() {
+        int unchecked = 0;
+        Runnable action;
+        while ((action = handOff.poll()) != null) {
+            action.run();
+            if (++unchecked == BUDGET_CHECK_INTERVAL) {
+                unchecked = 0;
+                if (tickBudget.exhausted()) return;
+            }
+        }
+    }
+
+    /**
+     * Prüft die Position eines Emitters und aktualisiert seine Lichtblöcke (auf dem Thread des Zustands)
+     *
+     * @return true wenn sich der Emitter bewegt hat
+     */
+    public boolean updateEmitter(EmitterState state) {
+        int maxShapes = sample(state);
+        if (maxShapes == NOT_MOVED) return false;
+
+        applyMove(state, state.worldId, state.blockKey, state.shape, state.facing, state.lightLevel, maxShapes);
+        return true;
+    }
+
+    /**
+     * Folia: Prüft die Position eines Emitters auf dem Thread seiner Entity und übergibt eine Bewegung an den Flush.
+     * Hier wird nur der Zustand des Emitters selbst gelesen und geschrieben, nie Registry, Index oder Queue.
+     *
+     * @return true wenn sich der Emitter bewegt hat
+     */
+    public boolean sampleEmitter(EmitterState state) {
+        int maxShapes = sample(state);
+        if (maxShapes == NOT_MOVED) return false;
+
+        int worldId = state.worldId;
+        long blockKey = state.blockKey;
+        LightShape shape = state.shape;
+        int facing = state.facing;
+        int level = state.lightLevel;
+        handOff.offer(() -> {
+            // Inzwischen entfernte Emitter nicht wieder aufleben lassen
+            if (emitters.get(state.entityId) == state) {
+                applyMove(state, worldId, blockKey, shape, facing, level, maxShapes);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Fragt die Position ab und übernimmt sie in den Emitter, falls sich das Licht bewegen muss
+     *
+     * @return Anzahl der zu behaltenden Formen oder NOT_MOVED
+     */
+    private int sample(EmitterState state) {
+        // Zuerst, damit Level und Form danach zur Anforderung passen
+        state.takeInvalidation();
+        World world = locator.locate(state);
+        int worldId = worldIds.idOf(world);
+        CustomLightSettings current = settings;
+        double speed = state.sampleMotion(worldId, state.scratch.getX(), state.scratch.getY(), state.scratch.getZ(), System.nanoTime());
+
+        // Gerichtete Formen folgen zusätzlich der Blickrichtung
+        int facing = state.shape.directional() ? LightShape.facingOf(state.scratch.getYaw()) : 0;
+
+        if (current.movementPrediction() && speed >= current.fastSpeed()) {
+            return sampleFast(state, worldId, facing, speed, current);
+        }
+
+        int x = state.scratch.getBlockX();
+        int y = state.scratch.getBlockY() + state.lightHeight;
+        int z = state.scratch.getBlockZ();
+
+        // Emitter hat sich nicht bewegt - nichts zu tun (reiner long/int-Vergleich)
+        if (!state.moveTo(worldId, BlockKeys.pack(x, y, z), facing)) {
+            return NOT_MOVED;
+        }
+        return current.maxLightBlocksPerPlayer();
+    }
+
+    /**
+     * Schneller Emitter (Elytra, Pferd, Lore): Licht nur alle paar Blöcke setzen, und zwar voraus in Bewegungsrichtung.
+     * Der Abstand wächst mit der Geschwindigkeit, damit die Schreibvorgänge pro zurückgelegter Strecke begrenzt bleiben.
+     *
+     * @return Anzahl der zu behaltenden Formen oder NOT_MOVED
+     */
+    private int sampleFast(EmitterState state, int worldId, int facing, double speed, CustomLightSettings current) {
+        double px = state.scratch.getX();
+        double py = state.scratch.getY();
+        double pz = state.scratch.getZ();
+        double spacing = Math.max(MIN_FAST_SPACING, Math.min(MAX_FAST_SPACING, speed * FAST_SPACING_TICKS));
+
+        // Die zuletzt gesetzte Form deckt die aktuelle Strecke noch ab
+        if (state.worldId == worldId && state.travelledSquared(px, py, pz) < spacing * spacing) {
+            return NOT_MOVED;
+        }
+
+        // Vorhersage auf die Mitte der nächsten Strecke, plus ein Durchlauf Verzögerung bis zum Schreiben
+        double leadTicks = spacing / 2 / speed + current.updateInterval();
+        double leadY = Math.max(-MAX_VERTICAL_LEAD, Math.min(MAX_VERTICAL_LEAD, state.velocityY * leadTicks));
+        int x = (int) Math.floor(px + state.velocityX * leadTicks);
+        int y = (int) Math.floor(py + leadY) + state.lightHeight;
+        int z = (int) Math.floor(pz + state.velocityZ * leadTicks);
+
+        state.markPlaced(px, py, pz);
+        if (!state.moveTo(worldId, BlockKeys.pack(x, y, z), facing)) {
+            return NOT_MOVED;
+        }
+        return Math.min(FAST_TRAIL, current.maxLightBlocksPerPlayer());
+    }
+
+    /**
+     * Setzt die Form an der neuen Position, gibt entfernte und überzählige Formen frei.
+     * Die Position kommt als Parameter, da sie unter Folia auf einem anderen Thread ermittelt wurde.
+     */
+    private void applyMove(EmitterState state, int worldId, long blockKey, LightShape shape, int facing, int level, int maxShapes) {
+        CustomLightSettings current = settings;
+        int entityId = state.entityId;
+        // Nur der Unterschied zur bisherigen Form wird geschrieben (siehe placeLightBlock)
+        registry.apply(entityId, worldId, blockKey, shape, facing, level, current.maxLightBlocksPerPlayer());
+        // Section-Wechsel des Emitters nachführen (innerhalb einer Section nur ein Vergleich)
+        spatialIndex.moveEmitter(state, entityId, worldId, blockKey);
+        // Quadrierte Ganzzahl-Distanz, Blöcke in anderen Welten werden ebenfalls entfernt
+        registry.removeDistant(entityId, worldId, blockKey, current.removalRadius());
+        registry.trim(entityId, maxShapes);
+    }
+
+    /**
+     * Merkt einen neuen Lichtblock oder ein geändertes wirksames Level zum Schreiben vor
+     */
+    private void placeLightBlock(int worldId, long key, int level, boolean existing) {
+        spatialIndex.putLight(worldId, key, level);
+        // Bereits bestehende Lichtblöcke nur auffrischen (niedrigere Priorität als neue)
+        if (existing) {
+            writeQueue.refresh(worldId, key, level);
+        } else {
+            writeQueue.place(worldId, key, level);
+            lightsPlaced.increment();
+        }
+    }
+
+    /**
+     * Merkt einen Lichtblock zum Entfernen vor, sobald ihn kein Emitter mehr benötigt
+     */
+    private void removeLightBlock(int worldId, long key) {
+        spatialIndex.removeLight(worldId, key);
+        writeQueue.remove(worldId, key);
+        lightsRemoved.increment();
+    }
+
+    /**
+     * Übernimmt neue Fingerabdrücke einzelner Quellen einer Entity und pflegt ihren Emitter:
+     * es leuchtet das hellste Item aller Quellen, ohne leuchtendes Item wird der Emitter entfernt
+     *
+     * @param sources      Bitmaske der neu gelesenen Quellen
+     * @param fingerprints Fingerabdruck pro Quelle (nur die Quellen aus sources werden gelesen)
+     * @return der Emitter danach (null wenn keine Quelle mehr leuchtet)
+     */
+    public EmitterState updateSources(Entity entity, int sources, int[] fingerprints, ItemLights lights) {
+        CustomLightSettings current = settings;
+        int entityId = entity.getEntityId();
+        EmitterState state = emitters.get(entityId);
+
+        // Ohne Emitter waren zuletzt alle Quellen dunkel
+        int bestModelId = ItemLights.NONE;
+        int bestLevel = -1;
+        for (int i = 0; i < EmitterSource.COUNT; i++) {
+            int fingerprint = (sources & (1 << i)) != 0 ? fingerprints[i]
+                    : state != null ? state.sourceFingerprints[i] : ItemLights.NONE;
+            int level = lights.levelOf(fingerprint);
+            if (level > bestLevel) {
+                bestModelId = fingerprint;
+                bestLevel = level;
+            }
+        }
+
+        // Kein leuchtendes Item mehr in einer Quelle
+        if (bestLevel < 0) {
+            if (state != null) {
+                removeEmitter(entityId, current.removeAllOnHelmetOff());
+            }
+            return null;
+        }
+
+        LightShape shape = current.shapeFor(bestModelId);
+        boolean created = state == null;
+        if (created) {
+            state = new EmitterState(entity, bestModelId, bestLevel, shape);
+        } else if (state.modelId != bestModelId || state.lightLevel != bestLevel || !state.shape.equals(shape)) {
+            state.modelId = bestModelId;
+            state.lightLevel = bestLevel;
+            state.shape = shape;
+            // Position zurücksetzen, damit der nächste Durchlauf das Licht sofort neu setzt
+            state.invalidatePosition();
+        }
+        for (int i = 0; i < EmitterSource.COUNT; i++) {
+            if ((sources & (1 << i)) != 0) {
+                state.sourceFingerprints[i] = fingerprints[i];
+            }
+        }
+        if (created) {
+            emitters.put(entityId, state);
+            listener.added(state);
+        }
+        // Das neue Licht wird durch den nächsten Durchlauf gesetzt
+        return state;
+    }
+
+    /**
+     * Macht ein leuchtendes fallengelassenes Item zum Emitter (nichts zu tun, wenn es schon einer ist)
+     */
+    public void addDropped(Entity item, int fingerprint, int level) {
+        if (emitters.get(item.getEntityId()) != null) return;
+        // Das Licht sitzt im Block des Items, nicht darüber
+        EmitterState state = new EmitterState(item, fingerprint, level, settings.shapeFor(fingerprint), 0);
+        state.sourceFingerprints[EmitterSource.DROPPED.ordinal()] = fingerprint;
+        emitters.put(item.getEntityId(), state);
+        listener.added(state);
+    }
+
+    /**
+     * Entfernt einen Emitter samt Index-Eintrag
+     *
+     * @param removeLights true wenn auch seine Lichtblöcke sofort entfernt werden sollen
+     */
+    public void removeEmitter(int entityId, boolean removeLights) {
+        EmitterState state = emitters.remove(entityId);
+        if (state != null) {
+            spatialIndex.removeEmitter(state, entityId);
+            listener.removed(state);
+        }
+        if (removeLights) {
+            registry.removeAll(entityId);
+        }
+    }
+
+    /**
+     * Entfernt alle Lichtblöcke einer Entity (der Emitter bleibt bestehen)
+     */
+    public void removeLights(int entityId) {
+        registry.removeAll(entityId);
+    }
+
+    /**
+     * Erzwingt eine Neuberechnung der Lichtposition beim nächsten Durchlauf
+     */
+    public void invalidate(int entityId) {
+        EmitterState state = emitters.get(entityId);
+        if (state != null) {
+            state.invalidatePosition();
+        }
+    }
+
+    /**
+     * Gleicht die Emitter fallengelassener Items mit neuen Einstellungen ab
+     */
+    public void refreshDropped(ItemLights lights) {
+        CustomLightSettings current = settings;
+        // Erst sammeln, Entfernen während der Iteration verschiebt Einträge der Map
+        List<EmitterState> dark = new ArrayList<>();
+        for (int slot = 0; slot < emitters.capacity(); slot++) {
+            EmitterState state = emitters.valueAt(slot);
+            if (state == null || !(state.entity instanceof Item)) continue;
+
+            int level = current.hasSource(EmitterSource.DROPPED) ? lights.levelOf(state.modelId) : -1;
+            if (level < 0) {
+                dark.add(state);
+                continue;
+            }
+            LightShape shape = current.shapeFor(state.modelId);
+            if (state.lightLevel != level || !state.shape.equals(shape)) {
+                state.lightLevel = level;
+                state.shape = shape;
+                state.invalidatePosition();
+            }
+        }
+        for (EmitterState state : dark) {
+            removeEmitter(state.entityId, true);
+        }
+    }
+
+    /**
+     * Entfernt alle Lichtblöcke über den bisherigen Writer, z.B. vor einem Wechsel des Licht-Modus.
+     * Die Emitter bleiben bestehen und setzen ihr Licht im nächsten Durchlauf neu.
+     */
+    public void resetLights(LightWriteQueue.ChunkWriter writer) {
+        registry.clear();
+        writeQueue.flush(worldIds, writer);
+        for (int slot = 0; slot < emitters.capacity(); slot++) {
+            EmitterState state = emitters.valueAt(slot);
+            if (state != null) {
+                state.invalidatePosition();
+            }
+        }
+    }
+
+    /**
+     * Entfernt alle Lichtblöcke und Emitter; noch nicht übernommene Aufgaben verfallen
+     *
+     * @param writer schreibt die Entfernungen (null = nur vergessen)
+     */
+    public void clear(LightWriteQueue.ChunkWriter writer) {
+        handOff.clear();
+        registry.clear();
+        try {
+            if (writer != null) {
+                writeQueue.flush(worldIds, writer);
+            }
+        } finally {
+            for (int slot = 0; slot < emitters.capacity(); slot++) {
+                EmitterState state = emitters.valueAt(slot);
+                if (state != null) {
+                    listener.removed(state);
+                }
+            }
+            emitters.clear();
+            spatialIndex.clear();
+            writeQueue.clear();
+            worldIds.clear();
+        }
+    }
+
+    public void forEachEmitter(Consumer<EmitterState> action) {
+        for (int slot = 0; slot < emitters.capacity(); slot++) {
+            EmitterState state = emitters.valueAt(slot);
+            if (state != null) {
+                action.accept(state);
+            }
+        }
+    }
+
+    public EmitterState emitter(int entityId) {
+        return emitters.get(entityId);
+    }
+
+    /**
+     * Schreibt Lichtblöcke neu, die eine Bereinigung entfernt hat oder die in einem entladenen Chunk nicht gesetzt
+     * werden konnten - sofern ein Emitter sie noch hält
+     *
+     * @param keys entfernte bzw. nicht gesetzte Blöcke (Schlüssel mit Wert != 0)
+     */
+    public void restoreOwned(int worldId, LongIntOpenMap keys) {
+        for (int slot = 0; slot < keys.capacity(); slot++) {
+            if (keys.valueAt(slot) == 0) continue;
+            long key = keys.keyAt(slot);
+            if (registry.isOwned(worldId, key)) {
+                writeQueue.place(worldId, key, registry.levelOf(worldId, key));
+            }
+        }
+    }
+
+    /**
+     * Anzahl der Lichtblöcke im Umkreis (Kugel) um einen Block
+     */
+    public int lightsNear(int worldId, int x, int y, int z, int radius) {
+        return spatialIndex.lightsNear(worldId, x, y, z, radius, null);
+    }
+
+    /**
+     * Besucht alle Emitter in den Sections, die den Umkreis berühren
+     *
+     * @return Anzahl der gefundenen Emitter
+     */
+    public int emittersNear(int worldId, int x, int y, int z, int radius, Consumer<EmitterState> visitor) {
+        return spatialIndex.emittersNear(worldId, x, y, z, radius, entityId -> {
+            EmitterState state = emitters.get(entityId);
+            if (state != null) {
+                visitor.accept(state);
+            }
+        });
+    }
+
+    public int emitterCount() {
+        return emitters.size();
+    }
+
+    public int lightCount() {
+        return registry.size();
+    }
+
+    public int sectionCount() {
+        return spatialIndex.sectionCount();
+    }
+
+    public int queueDepth() {
+        return writeQueue.size();
+    }
+}
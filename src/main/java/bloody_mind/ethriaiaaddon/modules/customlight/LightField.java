@@ -0,0 +1,241 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import java.util.Arrays;
+
+/**
+ * Gemeinsames Lichtfeld einer Welt: pro Blockposition die Anzahl der Besitzer und wie viele Besitzer welches
+ * Level anfordern. Wirksam ist immer das höchste angeforderte Level - geschrieben werden muss nur, wenn es sich ändert.
+ * Open Addressing wie {@link LongIntOpenMap}; die Zähler pro Level liegen in einem gemeinsamen Array (16 pro Slot).
+ */
+public final class LightField {
+
+    private static final int LEVELS = 16;
+
+    private long[] keys;
+    // Anzahl Besitzer pro Slot (0 = leer)
+    private int[] owners;
+    // Wirksames (höchstes angefordertes) Level pro Slot
+    private byte[] effective;
+    // Besitzer pro Level: levelCounts[slot * 16 + level]
+    private char[] levelCounts;
+    private int size;
+    private int mask;
+
+    // Ergebnis der letzten Änderung (vermeidet Objekt-Rückgabe)
+    private int previousLevel;
+    private int currentLevel;
+
+    public LightField() {
+        this(16);
+    }
+
+    public LightField(int expected) {
+        allocate(Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        owners = new int[capacity];
+        effective = new byte[capacity];
+        levelCounts = new char[capacity * LEVELS];
+        mask = capacity - 1;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    private int find(long key) {
+        int slot = mix(key) & mask;
+        while (owners[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Ein weiterer Besitzer fordert die Position mit dem Level an
+     */
+    public void acquire(long key, int level) {
+        int slot = mix(key) & mask;
+        while (owners[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (owners[slot] == 0) {
+            keys[slot] = key;
+            effective[slot] = 0;
+            size++;
+        }
+        previousLevel = effective[slot];
+        owners[slot]++;
+        levelCounts[slot * LEVELS + level]++;
+        if (level > effective[slot]) {
+            effective[slot] = (byte) level;
+        }
+        currentLevel = effective[slot];
+
+        if (size * 2 > owners.length) {
+            rehash(owners.length * 2);
+        }
+    }
+
+    /**
+     * Ein Besitzer ändert das angeforderte Level einer Position, die er bereits hält
+     */
+    public void change(long key, int oldLevel, int newLevel) {
+        int slot = find(key);
+        if (slot < 0) {
+            previousLevel = 0;
+            currentLevel = 0;
+            return;
+        }
+        previousLevel = effective[slot];
+        int base = slot * LEVELS;
+        if (levelCounts[base + oldLevel] > 0) {
+            levelCounts[base + oldLevel]--;
+        }
+        levelCounts[base + newLevel]++;
+        effective[slot] = (byte) highestLevel(base);
+        currentLevel = effective[slot];
+    }
+
+    /**
+     * Ein Besitzer gibt die Position frei; ohne Besitzer verschwindet sie (wirksames Level danach 0)
+     */
+    public void release(long key, int level) {
+        int slot = find(key);
+        if (slot < 0) {
+            previousLevel = 0;
+            currentLevel = 0;
+            return;
+        }
+        previousLevel = effective[slot];
+        int base = slot * LEVELS;
+        if (levelCounts[base + level] > 0) {
+            levelCounts[base + level]--;
+        }
+        if (--owners[slot] == 0) {
+            Arrays.fill(levelCounts, base, base + LEVELS, (char) 0);
+            shiftBack(slot);
+            size--;
+            currentLevel = 0;
+            return;
+        }
+        effective[slot] = (byte) highestLevel(base);
+        currentLevel = effective[slot];
+    }
+
+    private int highestLevel(int base) {
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if (levelCounts[base + level] != 0) {
+                return level;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Wirksames Level vor der letzten Änderung (0 = Position war nicht belegt)
+     */
+    public int previousLevel() {
+        return previousLevel;
+    }
+
+    /**
+     * Wirksames Level nach der letzten Änderung (0 = Position ist nicht mehr belegt)
+     */
+    public int currentLevel() {
+        return currentLevel;
+    }
+
+    public boolean contains(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Wirksames Level einer Position (0 wenn nicht belegt)
+     */
+    public int levelOf(long key) {
+        int slot = find(key);
+        return slot < 0 ? 0 : effective[slot];
+    }
+
+    /**
+     * Backward-Shift-Deletion, damit keine Tombstones entstehen
+     */
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (owners[next] != 0) {
+            int ideal = mix(keys[next]) & mask;
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                move(next, gap);
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        owners[gap] = 0;
+        Arrays.fill(levelCounts, gap * LEVELS, gap * LEVELS + LEVELS, (char) 0);
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        owners[to] = owners[from];
+        effective[to] = effective[from];
+        System.arraycopy(levelCounts, from * LEVELS, levelCounts, to * LEVELS, LEVELS);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldOwners = owners;
+        byte[] oldEffective = effective;
+        char[] oldCounts = levelCounts;
+        allocate(capacity);
+        for (int i = 0; i < oldOwners.length; i++) {
+            if (oldOwners[i] != 0) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (owners[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                owners[slot] = oldOwners[i];
+                effective[slot] = oldEffective[i];
+                System.arraycopy(oldCounts, i * LEVELS, levelCounts, slot * LEVELS, LEVELS);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Anzahl der Slots - zusammen mit keyAt/isOccupied für allokationsfreie Iteration
+     */
+    public int capacity() {
+        return owners.length;
+    }
+
+    public long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public boolean isOccupied(int slot) {
+        return owners[slot] != 0;
+    }
+
+    public void clear() {
+        Arrays.fill(owners, 0);
+        Arrays.fill(levelCounts, (char) 0);
+        size = 0;
+    }
+}
@@ -0,0 +1,386 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.bukkit.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Append-only Journal aller in die Welt geschriebenen Lichtblöcke (memory-mapped, binäre Einträge).
+ * Nach einem Absturz liefert {@link #open()} alle Lichtblöcke, die nie entfernt wurden.
+ *
+ * Format: Header (Magic, Version), danach Einträge
+ * WORLD [1][id:int][uuid:2x long], PLACE [2][id:int][key:long], REMOVE [3][id:int][key:long].
+ * Das Typ-Byte wird zuletzt geschrieben, ein abgebrochener Eintrag bleibt dadurch 0 und beendet das Lesen.
+ */
+public final class LightJournal {
+
+    private static final int MAGIC = 0x454C4A31; // "ELJ1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte TYPE_WORLD = 1;
+    private static final byte TYPE_PLACE = 2;
+    private static final byte TYPE_REMOVE = 3;
+
+    private static final int WORLD_RECORD_SIZE = 1 + 4 + 16;
+    private static final int BLOCK_RECORD_SIZE = 1 + 4 + 8;
+    private static final int INITIAL_CAPACITY = 256 * 1024;
+    // Eigene temporäre Dateien, damit Kompaktierung (ohne Lock) und Neuschreiben (unter Lock) sich nie berühren
+    private static final String REWRITE_SUFFIX = ".tmp";
+    private static final String COMPACT_SUFFIX = ".compact.tmp";
+
+    private final File file;
+
+    // Journal-Welt-ID -> UUID / geladene Welt (nur zum schnellen Identitätsvergleich)
+    private UUID[] worldUids = new UUID[0];
+    private World[] worldRefs = new World[0];
+    // Journal-Welt-ID -> aktuell in der Welt stehende Lichtblöcke
+    private LongIntOpenMap[] live = new LongIntOpenMap[0];
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    // Zählt jedes Neuschreiben - eine laufende Kompaktierung erkennt daran, dass ihr Schnappschuss veraltet ist
+    private int generation;
+    private boolean compacting;
+
+    public LightJournal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Liest ein vorhandenes Journal ein, schreibt es kompakt neu und öffnet es zum Anhängen.
+     *
+     * @return alle Lichtblöcke, die laut Journal noch in der Welt stehen
+     */
+    public synchronized OrphanLightIndex open() throws IOException {
+        OrphanLightIndex orphans = new OrphanLightIndex();
+        if (file.exists()) {
+            replay(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+            for (int id = 0; id < live.length; id++) {
+                LongIntOpenMap keys = live[id];
+                // Lücken in den IDs (Welten ohne Einträge) haben keine UUID
+                if (worldUids[id] == null) continue;
+                for (int slot = 0; slot < keys.capacity(); slot++) {
+                    if (keys.valueAt(slot) != 0) {
+                        orphans.add(worldUids[id], keys.keyAt(slot));
+                    }
+                }
+            }
+        }
+        // Verwaiste Blöcke bleiben im Journal, bis sie tatsächlich entfernt wurden
+        rewrite(INITIAL_CAPACITY);
+        return orphans;
+    }
+
+    /**
+     * Verwirft ein unlesbares Journal (bleibt als .broken erhalten) und beginnt ein leeres
+     */
+    public synchronized void openEmpty() throws IOException {
+        closeChannel();
+        worldUids = new UUID[0];
+        worldRefs = new World[0];
+        live = new LongIntOpenMap[0];
+        if (file.exists()) {
+            Files.move(file.toPath(), new File(file.getPath() + ".broken").toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        rewrite(INITIAL_CAPACITY);
+    }
+
+    private void replay(ByteBuffer in) {
+        if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC || in.getInt() != VERSION) {
+            return;
+        }
+        while (in.hasRemaining()) {
+            byte type = in.get();
+            if (type == TYPE_WORLD && in.remaining() >= WORLD_RECORD_SIZE - 1) {
+                int id = in.getInt();
+                UUID uid = new UUID(in.getLong(), in.getLong());
+                defineWorld(id, uid);
+            } else if ((type == TYPE_PLACE || type == TYPE_REMOVE) && in.remaining() >= BLOCK_RECORD_SIZE - 1) {
+                int id = in.getInt();
+                long key = in.getLong();
+                // Block-Eintrag ohne vorherigen WORLD-Eintrag: Journal beschädigt, Rest verwerfen
+                if (id < 0 || id >= live.length || worldUids[id] == null) break;
+                live[id].put(key, type == TYPE_PLACE ? 1 : 0);
+            } else {
+                // Ende oder abgebrochener Eintrag
+                break;
+            }
+        }
+    }
+
+    private void defineWorld(int id, UUID uid) {
+        if (id >= worldUids.length) {
+            int oldSize = worldUids.length;
+            int size = id + 1;
+            worldUids = Arrays.copyOf(worldUids, size);
+            worldRefs = Arrays.copyOf(worldRefs, size);
+            live = Arrays.copyOf(live, size);
+            // Übersprungene IDs (z.B. nach Kompaktierung weggefallene Welten) bekommen leere Einträge
+            for (int gap = oldSize; gap < size; gap++) {
+                live[gap] = new LongIntOpenMap();
+            }
+        }
+        worldUids[id] = uid;
+    }
+
+    /**
+     * Journal-ID der Welt, vergibt bei Bedarf eine neue und schreibt den WORLD-Eintrag (Platz muss reserviert sein)
+     */
+    private int worldId(World world) {
+        for (int id = 0; id < worldRefs.length; id++) {
+            if (worldRefs[id] == world) {
+                return id;
+            }
+        }
+        UUID uid = world.getUID();
+        for (int id = 0; id < worldUids.length; id++) {
+            if (uid.equals(worldUids[id])) {
+                worldRefs[id] = world;
+                return id;
+            }
+        }
+        // Durch Kompaktierung frei gewordene ID wiederverwenden
+        int id = 0;
+        while (id < worldUids.length && worldUids[id] != null) {
+            id++;
+        }
+        defineWorld(id, uid);
+        worldRefs[id] = world;
+        writeWorld(buffer, id, uid);
+        return id;
+    }
+
+    /**
+     * Vermerkt einen Lichtblock, bevor er in die Welt geschrieben wird
+     */
+    public synchronized void recordPlace(World world, long key) {
+        append(TYPE_PLACE, world, key);
+    }
+
+    /**
+     * Vermerkt einen Lichtblock, nachdem er aus der Welt entfernt wurde
+     */
+    public synchronized void recordRemove(World world, long key) {
+        append(TYPE_REMOVE, world, key);
+    }
+
+    /**
+     * Prüft, ob der Lichtblock laut Journal aktuell in der Welt steht
+     */
+    public synchronized boolean isLive(World world, long key) {
+        UUID uid = world.getUID();
+        for (int id = 0; id < worldUids.length; id++) {
+            if (uid.equals(worldUids[id])) {
+                return live[id].contains(key);
+            }
+        }
+        return false;
+    }
+
+    private void append(byte type, World world, long key) {
+        if (buffer == null) return;
+        // Platz vorab reservieren, damit keine Kompaktierung zwischen WORLD- und Block-Eintrag fällt
+        ensureRemaining(WORLD_RECORD_SIZE + BLOCK_RECORD_SIZE);
+        int id = worldId(world);
+        int previous = live[id].put(key, type == TYPE_PLACE ? 1 : 0);
+        // Unveränderter Zustand muss nicht erneut geschrieben werden
+        if ((type == TYPE_PLACE) == (previous != 0)) return;
+
+        int position = buffer.position();
+        buffer.putInt(position + 1, id);
+        buffer.putLong(position + 5, key);
+        buffer.put(position, type);
+        buffer.position(position + BLOCK_RECORD_SIZE);
+    }
+
+    private void ensureRemaining(int bytes) {
+        // Platz für den Eintrag plus End-Markierung
+        if (buffer.remaining() > bytes) return;
+        try {
+            int capacity = buffer.capacity();
+            // Erst kompaktieren, bei Bedarf vergrößern
+            int needed = HEADER_SIZE + liveBytes() + bytes + 1;
+            rewrite(needed * 2 > capacity ? capacity * 2 : capacity);
+        } catch (IOException e) {
+            throw new IllegalStateException("CustomLight-Journal konnte nicht erweitert werden", e);
+        }
+    }
+
+    private int liveBytes() {
+        int total = 0;
+        for (LongIntOpenMap keys : live) {
+            total += WORLD_RECORD_SIZE + keys.size() * BLOCK_RECORD_SIZE;
+        }
+        return total;
+    }
+
+    /**
+     * Schreibt das Journal neu, sodass es nur noch die aktuell stehenden Lichtblöcke enthält.
+     * Unter dem Lock wird nur der Schnappschuss gebaut und am Ende das neue Mapping eingesetzt;
+     * Schreiben und Mappen der neuen Datei laufen ohne Lock, Einträge landen solange im alten Journal.
+     */
+    public void compact() throws IOException {
+        byte[] data;
+        int mark;
+        int capacity;
+        int startGeneration;
+        synchronized (this) {
+            if (buffer == null || compacting) return;
+            // Welt-IDs bleiben definiert, damit nachfolgende Einträge ohne neuen WORLD-Eintrag gültig bleiben
+            data = snapshot(true);
+            mark = buffer.position();
+            capacity = buffer.capacity();
+            startGeneration = generation;
+            compacting = true;
+        }
+
+        File tmp = tempFile(COMPACT_SUFFIX);
+        FileChannel newChannel = null;
+        try {
+            Files.write(tmp.toPath(), data);
+            newChannel = FileChannel.open(tmp.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer newBuffer = newChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+            FileChannel oldChannel;
+            MappedByteBuffer oldBuffer;
+            synchronized (this) {
+                // Zwischenzeitlich vergrößert oder geschlossen: der Schnappschuss ist veraltet
+                if (buffer == null || generation != startGeneration) return;
+
+                // Seit dem Schnappschuss angehängte Einträge übernehmen (passt immer: der Schnappschuss ist nie größer
+                // als der Journalinhalt bis zur Markierung)
+                ByteBuffer appended = buffer.duplicate();
+                appended.limit(buffer.position()).position(mark);
+                newBuffer.position(data.length);
+                newBuffer.put(appended);
+
+                // Das Umbenennen muss vor dem Austausch liegen, sonst gingen Einträge bei einem Absturz verloren
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                oldChannel = channel;
+                oldBuffer = buffer;
+                channel = newChannel;
+                buffer = newBuffer;
+                newChannel = null;
+                generation++;
+            }
+            // Das alte Mapping gehört jetzt niemandem mehr
+            oldBuffer.force();
+            oldChannel.close();
+        } finally {
+            if (newChannel != null) {
+                newChannel.close();
+                Files.deleteIfExists(tmp.toPath());
+            }
+            synchronized (this) {
+                compacting = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Kompakter Stand des Journals: Header, WORLD-Einträge und ein PLACE-Eintrag pro stehendem Lichtblock
+     *
+     * @param keepEmptyWorlds auch Welten ohne Lichtblöcke schreiben (ihre IDs bleiben gültig)
+     */
+    private byte[] snapshot(boolean keepEmptyWorlds) {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + liveBytes());
+        out.putInt(MAGIC).putInt(VERSION);
+        for (int id = 0; id < live.length; id++) {
+            LongIntOpenMap keys = live[id];
+            if (worldUids[id] == null || (keys.isEmpty() && !keepEmptyWorlds)) continue;
+            writeWorld(out, id, worldUids[id]);
+            for (int slot = 0; slot < keys.capacity(); slot++) {
+                if (keys.valueAt(slot) != 0) {
+                    out.put(TYPE_PLACE).putInt(id).putLong(keys.keyAt(slot));
+                }
+            }
+        }
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    private File tempFile(String suffix) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        return new File(file.getPath() + suffix);
+    }
+
+    /**
+     * Schreibt den aktuellen Stand in eine temporäre Datei, ersetzt das Journal atomar und mappt es neu
+     * (unter dem Lock - nur beim Öffnen, Schließen und Vergrößern)
+     */
+    private void rewrite(int capacity) throws IOException {
+        int size = Math.max(capacity, HEADER_SIZE + liveBytes() + 1);
+        byte[] data = snapshot(false);
+
+        closeChannel();
+        File tmp = tempFile(REWRITE_SUFFIX);
+        Files.write(tmp.toPath(), data);
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        generation++;
+
+        // Welt-IDs ohne Einträge wurden nicht geschrieben und müssen neu definiert werden
+        for (int id = 0; id < live.length; id++) {
+            if (live[id].isEmpty()) {
+                worldRefs[id] = null;
+                worldUids[id] = null;
+            }
+        }
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        // Die Datei wurde neu angelegt, der Bereich hinter den Einträgen ist 0 (End-Markierung)
+        buffer.position(data.length);
+    }
+
+    private static void writeWorld(ByteBuffer out, int id, UUID uid) {
+        int position = out.position();
+        out.putInt(position + 1, id);
+        out.putLong(position + 5, uid.getMostSignificantBits());
+        out.putLong(position + 13, uid.getLeastSignificantBits());
+        out.put(position, TYPE_WORLD);
+        out.position(position + WORLD_RECORD_SIZE);
+    }
+
+    /**
+     * Wartet auf eine laufende Kompaktierung, kompaktiert ein letztes Mal und schließt das Journal
+     */
+    public synchronized void close() throws IOException {
+        while (compacting) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Warten auf die Kompaktierung des CustomLight-Journals unterbrochen");
+            }
+        }
+        if (buffer == null) return;
+        rewrite(HEADER_SIZE + liveBytes() + 1);
+        buffer.force();
+        closeChannel();
+    }
+
+    private void closeChannel() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
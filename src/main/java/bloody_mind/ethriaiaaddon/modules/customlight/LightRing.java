@@ -0,0 +1,140 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+/**
+ * Ringpuffer der letzten Lichtformen eines Spielers (älteste zuerst), Größe = max-light-blocks-per-player.
+ * Zusätzlich zählt er pro Block, in wie vielen seiner Formen der Block vorkommt, und merkt sich dessen Level.
+ */
+public final class LightRing {
+
+    private final int[] worldIds;
+    private final long[] anchors;
+    private final int[] stencils;
+    private final int[] levels;
+    private final LightShape[] shapes;
+    private final int capacity;
+    private int head;
+    private int size;
+
+    // Blockschlüssel -> (Anzahl Formen << 4) | zuletzt geschriebenes Level
+    private final LongIntOpenMap cells = new LongIntOpenMap();
+    // Welt aller Blöcke in cells (ein Spieler ist immer nur in einer Welt)
+    private int cellWorldId = EmitterState.NO_WORLD;
+
+    public LightRing(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        // Ein Platz mehr: die neue Form wird angelegt, bevor die älteste verdrängt wird
+        int cap = this.capacity + 1;
+        this.worldIds = new int[cap];
+        this.anchors = new long[cap];
+        this.stencils = new int[cap];
+        this.levels = new int[cap];
+        this.shapes = new LightShape[cap];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int slot(int index) {
+        return (head + index) % anchors.length;
+    }
+
+    public int worldIdAt(int index) {
+        return worldIds[slot(index)];
+    }
+
+    public long anchorAt(int index) {
+        return anchors[slot(index)];
+    }
+
+    int stencilAt(int index) {
+        return stencils[slot(index)];
+    }
+
+    int levelAt(int index) {
+        return levels[slot(index)];
+    }
+
+    LightShape shapeAt(int index) {
+        return shapes[slot(index)];
+    }
+
+    /**
+     * Hängt eine Form an; danach darf der Puffer höchstens eine Form über {@link #capacity()} liegen
+     */
+    void add(int worldId, long anchor, LightShape shape, int stencil, int level) {
+        int slot = slot(size);
+        worldIds[slot] = worldId;
+        anchors[slot] = anchor;
+        shapes[slot] = shape;
+        stencils[slot] = stencil;
+        levels[slot] = level;
+        size++;
+    }
+
+    /**
+     * Entfernt den Eintrag am Index und behält die Reihenfolge der übrigen bei
+     */
+    void removeAt(int index) {
+        if (index == 0) {
+            // Älteste Form: nur den Kopf weiterschieben
+            shapes[head] = null;
+            head = (head + 1) % anchors.length;
+            size--;
+            return;
+        }
+        for (int i = index; i < size - 1; i++) {
+            int to = slot(i);
+            int from = slot(i + 1);
+            worldIds[to] = worldIds[from];
+            anchors[to] = anchors[from];
+            shapes[to] = shapes[from];
+            stencils[to] = stencils[from];
+            levels[to] = levels[from];
+        }
+        shapes[slot(size - 1)] = null;
+        size--;
+    }
+
+    LongIntOpenMap cells() {
+        return cells;
+    }
+
+    int cellWorldId() {
+        return cellWorldId;
+    }
+
+    void setCellWorldId(int worldId) {
+        this.cellWorldId = worldId;
+    }
+
+    static int count(int cell) {
+        return cell >>> 4;
+    }
+
+    static int level(int cell) {
+        return cell & 15;
+    }
+
+    static int cell(int count, int level) {
+        return (count << 4) | level;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            shapes[slot(i)] = null;
+        }
+        head = 0;
+        size = 0;
+        cells.clear();
+        cellWorldId = EmitterState.NO_WORLD;
+    }
+}
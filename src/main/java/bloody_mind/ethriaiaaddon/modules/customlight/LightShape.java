@@ -0,0 +1,230 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Vorberechnete Lichtform eines Emitters (Schablone aus Versatz und Abschwächung pro Block).
+ * Wird einmal beim Laden der Konfiguration kompiliert; gerichtete Formen (cone) haben eine Schablone pro Blickrichtung.
+ */
+public final class LightShape {
+
+    public enum Type {
+        POINT, CROSS, SPHERE, CONE;
+
+        /**
+         * Liest den Typ aus der Konfiguration (null wenn unbekannt)
+         */
+        public static Type parse(String name) {
+            if (name == null) return null;
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Horizontale Blickrichtungen gerichteter Formen: Süden, Westen, Norden, Osten (wie Bukkit-Yaw 0/90/180/270)
+     */
+    public static final int FACINGS = 4;
+    public static final int MAX_RADIUS = 8;
+    // Obergrenze der Blöcke pro Form - bei größeren Formen bleiben die hellsten erhalten
+    public static final int MAX_CELLS = 512;
+
+    // Vorwärtsrichtung (x, z) pro Blickrichtung
+    private static final int[][] FORWARD = {{0, 1}, {-1, 0}, {0, -1}, {1, 0}};
+
+    /**
+     * Ein einzelner Lichtblock (bisheriges Verhalten)
+     */
+    public static final LightShape POINT = compile("point", Type.POINT, 0, 0, 0);
+
+    private final String name;
+    private final Type type;
+    private final int radius;
+    private final int falloff;
+    private final int angle;
+    // Pro Blickrichtung: Versatz zum Anker und Abschwächung in Lichtstufen, hellste Blöcke zuerst
+    private final int[][] dx;
+    private final int[][] dy;
+    private final int[][] dz;
+    private final int[][] dim;
+    private final boolean truncated;
+
+    private LightShape(String name, Type type, int radius, int falloff, int angle, List<int[]> cells, boolean truncated) {
+        this.name = name;
+        this.type = type;
+        this.radius = radius;
+        this.falloff = falloff;
+        this.angle = angle;
+        this.truncated = truncated;
+
+        int facings = type == Type.CONE ? FACINGS : 1;
+        this.dx = new int[facings][cells.size()];
+        this.dy = new int[facings][cells.size()];
+        this.dz = new int[facings][cells.size()];
+        this.dim = new int[facings][cells.size()];
+        for (int facing = 0; facing < facings; facing++) {
+            int forwardX = FORWARD[facing][0];
+            int forwardZ = FORWARD[facing][1];
+            for (int i = 0; i < cells.size(); i++) {
+                // Schablone ist nach Süden (+z) ausgerichtet: [seitlich, hoch, vorwärts]
+                int[] cell = cells.get(i);
+                if (facings == 1) {
+                    dx[facing][i] = cell[0];
+                    dz[facing][i] = cell[2];
+                } else {
+                    dx[facing][i] = forwardX * cell[2] - forwardZ * cell[0];
+                    dz[facing][i] = forwardZ * cell[2] + forwardX * cell[0];
+                }
+                dy[facing][i] = cell[1];
+                dim[facing][i] = cell[3];
+            }
+        }
+    }
+
+    /**
+     * Kompiliert eine Form in ihre Schablone
+     *
+     * @param radius  Ausdehnung in Blöcken (0 bis {@link #MAX_RADIUS})
+     * @param falloff Lichtstufen weniger pro Block Abstand zum Anker
+     * @param angle   Öffnungswinkel in Grad (nur cone)
+     */
+    public static LightShape compile(String name, Type type, int radius, int falloff, int angle) {
+        int r = type == Type.POINT ? 0 : Math.max(0, Math.min(MAX_RADIUS, radius));
+        int f = Math.max(0, Math.min(15, falloff));
+        int a = Math.max(1, Math.min(170, angle));
+
+        List<int[]> cells = new ArrayList<>();
+        switch (type) {
+            case POINT -> cells.add(new int[]{0, 0, 0, 0});
+            case CROSS -> {
+                cells.add(new int[]{0, 0, 0, 0});
+                for (int d = 1; d <= r; d++) {
+                    int dimmed = d * f;
+                    cells.add(new int[]{d, 0, 0, dimmed});
+                    cells.add(new int[]{-d, 0, 0, dimmed});
+                    cells.add(new int[]{0, d, 0, dimmed});
+                    cells.add(new int[]{0, -d, 0, dimmed});
+                    cells.add(new int[]{0, 0, d, dimmed});
+                    cells.add(new int[]{0, 0, -d, dimmed});
+                }
+            }
+            case SPHERE -> {
+                for (int x = -r; x <= r; x++) {
+                    for (int y = -r; y <= r; y++) {
+                        for (int z = -r; z <= r; z++) {
+                            int squared = x * x + y * y + z * z;
+                            // r * r + r ergibt eine rundere Kugel als r * r
+                            if (squared <= r * r + r) {
+                                cells.add(new int[]{x, y, z, (int) Math.round(Math.sqrt(squared)) * f});
+                            }
+                        }
+                    }
+                }
+            }
+            case CONE -> {
+                double spread = Math.tan(Math.toRadians(a / 2.0));
+                for (int forward = 0; forward <= r; forward++) {
+                    int width = (int) Math.floor(forward * spread + 0.5);
+                    for (int side = -width; side <= width; side++) {
+                        for (int up = -width; up <= width; up++) {
+                            if (side * side + up * up > width * width + width) continue;
+                            int squared = side * side + up * up + forward * forward;
+                            cells.add(new int[]{side, up, forward, (int) Math.round(Math.sqrt(squared)) * f});
+                        }
+                    }
+                }
+            }
+        }
+
+        // Blöcke, die bei keinem Lichtlevel mehr leuchten, gar nicht erst aufnehmen; hellste zuerst
+        cells.removeIf(cell -> cell[3] >= 15);
+        cells.sort((left, right) -> Integer.compare(left[3], right[3]));
+        boolean truncated = cells.size() > MAX_CELLS;
+        if (truncated) {
+            cells = new ArrayList<>(cells.subList(0, MAX_CELLS));
+        }
+        return new LightShape(name, type, r, f, a, cells, truncated);
+    }
+
+    /**
+     * Blickrichtung (0-3) zu einem Bukkit-Yaw
+     */
+    public static int facingOf(float yaw) {
+        return Math.floorMod(Math.round(yaw / 90f), FACINGS);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Type type() {
+        return type;
+    }
+
+    /**
+     * Gerichtete Formen müssen bei einer Drehung des Spielers neu angewendet werden
+     */
+    public boolean directional() {
+        return dx.length > 1;
+    }
+
+    /**
+     * Wurde die Form auf {@link #MAX_CELLS} Blöcke gekürzt?
+     */
+    public boolean truncated() {
+        return truncated;
+    }
+
+    /**
+     * Anzahl Blöcke der Schablone
+     */
+    public int size() {
+        return dx[0].length;
+    }
+
+    /**
+     * Schablone zu einer Blickrichtung (ungerichtete Formen haben nur eine)
+     */
+    int stencil(int facing) {
+        return dx.length == 1 ? 0 : Math.floorMod(facing, dx.length);
+    }
+
+    /**
+     * Blockschlüssel des i-ten Blocks der Schablone relativ zum Anker
+     */
+    long keyAt(int stencil, int i, long anchor) {
+        return BlockKeys.pack(BlockKeys.x(anchor) + dx[stencil][i], BlockKeys.y(anchor) + dy[stencil][i],
+                BlockKeys.z(anchor) + dz[stencil][i]);
+    }
+
+    /**
+     * Lichtlevel des i-ten Blocks bei einer Grundhelligkeit (0 = leuchtet nicht)
+     */
+    int levelAt(int stencil, int i, int level) {
+        return Math.max(0, level - dim[stencil][i]);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof LightShape shape)) return false;
+        return radius == shape.radius && falloff == shape.falloff && angle == shape.angle
+                && type == shape.type && name.equals(shape.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[]{name, type, radius, falloff, angle});
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + type.name().toLowerCase(Locale.ROOT) + ", " + size() + " Blöcke)";
+    }
+}
@@ -0,0 +1,268 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.bukkit.World;
+
+import java.util.Arrays;
+
+/**
+ * Sammelt Lichtblock-Änderungen eines Ticks und gibt sie gebündelt pro Chunk an einen {@link ChunkWriter}.
+ * Pro Position gilt nur die letzte Änderung - ein noch nicht geschriebenes Setzen und das folgende Entfernen heben sich auf.
+ * Geschrieben wird nach Priorität (Entfernen, neue Lichter, Auffrischen) innerhalb eines {@link TickBudget};
+ * was nicht mehr hineinpasst, bleibt für den nächsten Tick vorgemerkt.
+ */
+public final class LightWriteQueue {
+
+    /**
+     * Level-Wert für "Lichtblock entfernen"
+     */
+    public static final int REMOVE = -1;
+
+    /**
+     * Schreibt die Änderungen eines einzelnen Chunks (Lichtlevel oder {@link #REMOVE})
+     */
+    public interface ChunkWriter {
+        /**
+         * @return Anzahl der tatsächlich durchgeführten Änderungen (0 wenn sie erst später auf einem anderen Thread folgen)
+         */
+        int write(World world, int chunkX, int chunkZ, long[] keys, int[] levels, int count);
+    }
+
+    // Kodierung im LongIntOpenMap: neues Licht = Level + 1 (1..16), Auffrischen = Level + 17 (17..32),
+    // neues Licht über einem noch stehenden Block (vorgemerktes Entfernen) = Level + 33 (33..48), Entfernen = 64
+    private static final int PLACE_BASE = 1;
+    private static final int REFRESH_BASE = 17;
+    private static final int REPLACE_BASE = 33;
+    private static final int REMOVE_CODE = 64;
+
+    // Prioritäten in Schreibreihenfolge
+    private static final int PRIORITY_REMOVE = 0;
+    private static final int PRIORITY_PLACE = 1;
+    private static final int PRIORITY_REFRESH = 2;
+    // Sortierschlüssel: 22 Bit Chunk-X | 22 Bit Chunk-Z | 20 Bit Index
+    private static final int INDEX_BITS = 20;
+    private static final int MAX_SORTED = 1 << INDEX_BITS;
+
+    // Welt-ID -> (Blockschlüssel -> Operation)
+    private LongIntOpenMap[] pending = new LongIntOpenMap[4];
+    private int pendingCount;
+
+    // Wiederverwendete Puffer für den Flush
+    private long[] sortKeys = new long[64];
+    private long[] blockKeys = new long[64];
+    private int[] operations = new int[64];
+    private long[] chunkKeys = new long[64];
+    private int[] chunkLevels = new int[64];
+
+    private int lastFlushWrites;
+
+    private LongIntOpenMap pendingFor(int worldId) {
+        if (worldId >= pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(worldId + 1, pending.length * 2));
+        }
+        LongIntOpenMap map = pending[worldId];
+        if (map == null) {
+            map = new LongIntOpenMap();
+            pending[worldId] = map;
+        }
+        return map;
+    }
+
+    /**
+     * Merkt einen neuen Lichtblock mit dem angegebenen Level vor
+     */
+    public void place(int worldId, long key, int level) {
+        LongIntOpenMap map = pendingFor(worldId);
+        int current = map.get(key);
+        // Steht der Block noch in der Welt, muss ein späteres Entfernen ihn weiterhin entfernen
+        int base = current == 0 || current < REFRESH_BASE ? PLACE_BASE : REPLACE_BASE;
+        if (map.put(key, base + Math.max(0, Math.min(15, level))) == 0) {
+            pendingCount++;
+        }
+    }
+
+    /**
+     * Merkt das erneute Schreiben eines bereits bestehenden Lichtblocks vor (niedrigste Priorität)
+     */
+    public void refresh(int worldId, long key, int level) {
+        LongIntOpenMap map = pendingFor(worldId);
+        int current = map.get(key);
+        // Eine bereits vorgemerkte Platzierung nicht herabstufen
+        if (current != 0 && current < REFRESH_BASE) {
+            map.put(key, PLACE_BASE + Math.max(0, Math.min(15, level)));
+            return;
+        }
+        if (current >= REPLACE_BASE && current != REMOVE_CODE) {
+            map.put(key, REPLACE_BASE + Math.max(0, Math.min(15, level)));
+            return;
+        }
+        if (map.put(key, REFRESH_BASE + Math.max(0, Math.min(15, level))) == 0) {
+            pendingCount++;
+        }
+    }
+
+    /**
+     * Merkt das Entfernen eines Lichtblocks vor (nur echte LIGHT-Blöcke werden entfernt)
+     */
+    public void remove(int worldId, long key) {
+        LongIntOpenMap map = pendingFor(worldId);
+        int current = map.get(key);
+        // Noch nicht geschriebenes neues Licht: in der Welt steht nichts, beide Änderungen entfallen
+        if (current != 0 && current < REFRESH_BASE) {
+            map.remove(key);
+            pendingCount--;
+            return;
+        }
+        if (map.put(key, REMOVE_CODE) == 0) {
+            pendingCount++;
+        }
+    }
+
+    public int size() {
+        return pendingCount;
+    }
+
+    /**
+     * Anzahl der tatsächlich geschriebenen Blöcke beim letzten Flush
+     */
+    public int lastFlushWrites() {
+        return lastFlushWrites;
+    }
+
+    /**
+     * Gibt alle vorgemerkten Änderungen ohne Zeitlimit an den Writer
+     */
+    public void flush(WorldIds worldIds, ChunkWriter writer) {
+        flush(worldIds, writer, null);
+    }
+
+    /**
+     * Gibt vorgemerkte Änderungen nach Priorität an den Writer, bis das Budget aufgebraucht ist.
+     * Jeder Chunk wird pro Prioritätsstufe nur einmal aufgelöst.
+     */
+    public void flush(WorldIds worldIds, ChunkWriter writer, TickBudget budget) {
+        lastFlushWrites = 0;
+        if (pendingCount == 0) return;
+
+        boolean progressed = false;
+        for (int priority = PRIORITY_REMOVE; priority <= PRIORITY_REFRESH; priority++) {
+            for (int worldId = 0; worldId < pending.length; worldId++) {
+                LongIntOpenMap map = pending[worldId];
+                if (map == null || map.isEmpty()) continue;
+
+                World world = worldIds.get(worldId);
+                if (world == null) {
+                    pendingCount -= map.size();
+                    map.clear();
+                    continue;
+                }
+                // Mindestens ein Chunk pro Tick, damit nichts verhungert
+                if (progressed && budget != null && budget.exhausted()) {
+                    return;
+                }
+                progressed |= flushWorld(world, map, writer, priority, budget);
+            }
+        }
+    }
+
+    private static int priorityOf(int op) {
+        if (op == REMOVE_CODE) return PRIORITY_REMOVE;
+        return op < REFRESH_BASE || op >= REPLACE_BASE ? PRIORITY_PLACE : PRIORITY_REFRESH;
+    }
+
+    private static int levelOf(int op) {
+        if (op == REMOVE_CODE) return REMOVE;
+        if (op < REFRESH_BASE) return op - PLACE_BASE;
+        return op < REPLACE_BASE ? op - REFRESH_BASE : op - REPLACE_BASE;
+    }
+
+    /**
+     * Schreibt alle Änderungen einer Priorität in einer Welt, Chunk für Chunk bis das Budget aufgebraucht ist
+     *
+     * @return true wenn mindestens ein Chunk geschrieben wurde
+     */
+    private boolean flushWorld(World world, LongIntOpenMap map, ChunkWriter writer, int priority, TickBudget budget) {
+        ensureCapacity(map.size());
+
+        int n = 0;
+        for (int slot = 0; slot < map.capacity(); slot++) {
+            int op = map.valueAt(slot);
+            if (op == 0 || priorityOf(op) != priority) continue;
+            long key = map.keyAt(slot);
+            blockKeys[n] = key;
+            operations[n] = op;
+            long chunkBits = (((long) (BlockKeys.x(key) >> 4) & 0x3FFFFFL) << 22)
+                    | ((long) (BlockKeys.z(key) >> 4) & 0x3FFFFFL);
+            sortKeys[n] = (chunkBits << INDEX_BITS) | n;
+            n++;
+        }
+
+        if (n == 0) return false;
+
+        // Nach Chunk sortieren (nur bei realistischen Mengen, sonst Chunk für Chunk unsortiert)
+        boolean sorted = n < MAX_SORTED;
+        if (sorted) {
+            Arrays.sort(sortKeys, 0, n);
+        }
+
+        boolean written = false;
+        int groupSize = 0;
+        int chunkX = 0;
+        int chunkZ = 0;
+        for (int i = 0; i < n; i++) {
+            int index = sorted ? (int) (sortKeys[i] & (MAX_SORTED - 1)) : i;
+            long key = blockKeys[index];
+            int x = BlockKeys.x(key) >> 4;
+            int z = BlockKeys.z(key) >> 4;
+
+            if (groupSize > 0 && (x != chunkX || z != chunkZ)) {
+                writeGroup(world, map, writer, chunkX, chunkZ, groupSize);
+                written = true;
+                groupSize = 0;
+                if (budget != null && budget.exhausted()) {
+                    return true;
+                }
+            }
+            chunkX = x;
+            chunkZ = z;
+            chunkKeys[groupSize] = key;
+            chunkLevels[groupSize] = levelOf(operations[index]);
+            groupSize++;
+        }
+        if (groupSize > 0) {
+            writeGroup(world, map, writer, chunkX, chunkZ, groupSize);
+            written = true;
+        }
+        return written;
+    }
+
+    private void writeGroup(World world, LongIntOpenMap map, ChunkWriter writer, int chunkX, int chunkZ, int count) {
+        lastFlushWrites += writer.write(world, chunkX, chunkZ, chunkKeys, chunkLevels, count);
+        for (int i = 0; i < count; i++) {
+            map.remove(chunkKeys[i]);
+        }
+        pendingCount -= count;
+    }
+
+    private void ensureCapacity(int count) {
+        if (sortKeys.length < count) {
+            int capacity = Integer.highestOneBit(Math.max(1, count - 1)) << 1;
+            sortKeys = new long[capacity];
+            blockKeys = new long[capacity];
+            operations = new int[capacity];
+            chunkKeys = new long[capacity];
+            chunkLevels = new int[capacity];
+        }
+    }
+
+    /**
+     * Verwirft alle vorgemerkten Änderungen
+     */
+    public void clear() {
+        for (LongIntOpenMap map : pending) {
+            if (map != null) {
+                map.clear();
+            }
+        }
+        pendingCount = 0;
+    }
+}
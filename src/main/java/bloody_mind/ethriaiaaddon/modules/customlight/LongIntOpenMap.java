@@ -0,0 +1,163 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import java.util.Arrays;
+
+/**
+ * Open-Addressing Map von gepacktem Blockschlüssel auf einen positiven int-Wert (0 = nicht vorhanden)
+ */
+public final class LongIntOpenMap {
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    public LongIntOpenMap() {
+        this(16);
+    }
+
+    public LongIntOpenMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    /**
+     * Gibt den Wert zurück (0 wenn nicht vorhanden)
+     */
+    public int get(long key) {
+        int slot = mix(key) & mask;
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    public boolean contains(long key) {
+        return get(key) != 0;
+    }
+
+    /**
+     * Setzt den Wert; ein Wert von 0 entfernt den Eintrag. Gibt den alten Wert zurück.
+     */
+    public int put(long key, int value) {
+        if (value == 0) {
+            return remove(key);
+        }
+        int slot = mix(key) & mask;
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                int old = values[slot];
+                values[slot] = value;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > values.length) {
+            rehash(values.length * 2);
+        }
+        return 0;
+    }
+
+    /**
+     * Addiert delta zum Wert und gibt den neuen Wert zurück (Eintrag verschwindet bei 0)
+     */
+    public int add(long key, int delta) {
+        int updated = get(key) + delta;
+        put(key, Math.max(0, updated));
+        return Math.max(0, updated);
+    }
+
+    public int remove(long key) {
+        int slot = mix(key) & mask;
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                int old = values[slot];
+                shiftBack(slot);
+                size--;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Backward-Shift-Deletion, damit keine Tombstones entstehen
+     */
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != 0) {
+            int ideal = mix(keys[next]) & mask;
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (values[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Anzahl der Slots - zusammen mit keyAt/valueAt für allokationsfreie Iteration
+     */
+    public int capacity() {
+        return values.length;
+    }
+
+    public long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Gibt den Wert im Slot zurück (0 wenn leer)
+     */
+    public int valueAt(int slot) {
+        return values[slot];
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+}
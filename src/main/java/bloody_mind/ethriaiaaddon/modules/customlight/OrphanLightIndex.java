@@ -0,0 +1,79 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Verwaiste Lichtblöcke (z.B. nach einem Absturz), gruppiert nach Welt und Chunk.
+ * Sie werden erst entfernt, wenn ihr Chunk ohnehin geladen ist - es wird nie ein Chunk extra geladen.
+ * Ebenso vorgemerkt werden Lichtblöcke, die in einem entladenen Chunk nicht gesetzt werden konnten.
+ */
+public final class OrphanLightIndex {
+
+    // Welt-UUID -> Chunk-Schlüssel -> Blockschlüssel
+    private final Map<UUID, LongObjectOpenMap<LongIntOpenMap>> chunksByWorld = new HashMap<>();
+    private volatile int size;
+
+    public synchronized void add(UUID world, long key) {
+        LongObjectOpenMap<LongIntOpenMap> chunks = chunksByWorld.computeIfAbsent(world, k -> new LongObjectOpenMap<>());
+        long chunkKey = BlockKeys.chunkKeyOf(key);
+        LongIntOpenMap keys = chunks.get(chunkKey);
+        if (keys == null) {
+            keys = new LongIntOpenMap(4);
+            chunks.put(chunkKey, keys);
+        }
+        if (keys.put(key, 1) == 0) {
+            size++;
+        }
+    }
+
+    /**
+     * Entnimmt alle verwaisten Blöcke eines Chunks (null wenn keine vorhanden)
+     */
+    public synchronized LongIntOpenMap take(UUID world, int chunkX, int chunkZ) {
+        LongObjectOpenMap<LongIntOpenMap> chunks = chunksByWorld.get(world);
+        if (chunks == null) return null;
+        LongIntOpenMap keys = chunks.remove(BlockKeys.chunkKey(chunkX, chunkZ));
+        if (keys != null) {
+            size -= keys.size();
+            if (chunks.isEmpty()) {
+                chunksByWorld.remove(world);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Gibt die Chunk-Schlüssel aller Chunks einer Welt mit verwaisten Blöcken zurück
+     */
+    public synchronized long[] chunkKeys(UUID world) {
+        LongObjectOpenMap<LongIntOpenMap> chunks = chunksByWorld.get(world);
+        if (chunks == null) return new long[0];
+        long[] result = new long[chunks.size()];
+        int n = 0;
+        for (int slot = 0; slot < chunks.capacity(); slot++) {
+            if (chunks.valueAt(slot) != null) {
+                result[n++] = chunks.keyAt(slot);
+            }
+        }
+        return result;
+    }
+
+    public synchronized List<UUID> worlds() {
+        return new ArrayList<>(chunksByWorld.keySet());
+    }
+
+    /**
+     * Schneller Check ohne Lock (z.B. im ChunkLoadEvent)
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+}
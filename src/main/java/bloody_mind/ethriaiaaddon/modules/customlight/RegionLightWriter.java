@@ -0,0 +1,39 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Folia: Führt die Änderungen eines Chunks auf dem Thread der Region aus, der der Chunk gehört.
+ * Gezählt wird erst dort, mit der Anzahl, die der eigentliche Writer meldet.
+ */
+public final class RegionLightWriter implements LightWriteQueue.ChunkWriter {
+
+    private final Plugin plugin;
+    private final LightWriteQueue.ChunkWriter delegate;
+    private final IntConsumer written;
+
+    /**
+     * @param written erhält auf dem Region-Thread die tatsächlich geschriebenen Blöcke jedes Chunks
+     */
+    public RegionLightWriter(Plugin plugin, LightWriteQueue.ChunkWriter delegate, IntConsumer written) {
+        this.plugin = plugin;
+        this.delegate = delegate;
+        this.written = written;
+    }
+
+    @Override
+    public int write(World world, int chunkX, int chunkZ, long[] keys, int[] levels, int count) {
+        // Die Puffer der Queue werden wiederverwendet - für den Region-Task kopieren
+        long[] chunkKeys = Arrays.copyOf(keys, count);
+        int[] chunkLevels = Arrays.copyOf(levels, count);
+        Bukkit.getRegionScheduler().execute(plugin, world, chunkX, chunkZ,
+                () -> written.accept(delegate.write(world, chunkX, chunkZ, chunkKeys, chunkLevels, count)));
+        // Hier ist noch nichts geschrieben - die echte Anzahl meldet der Region-Task
+        return 0;
+    }
+}
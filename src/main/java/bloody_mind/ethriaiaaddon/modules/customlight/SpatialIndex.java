@@ -0,0 +1,225 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import java.util.Arrays;
+
+/**
+ * Räumlicher Index aller Emitter und Lichtblöcke nach Chunk-Section (16x16x16) pro Welt.
+ * Wird bei jeder Änderung inkrementell gepflegt, damit Abfragen wie "Lichter in der Nähe"
+ * nur die betroffenen Sections ansehen statt aller Lichter des Servers.
+ */
+public final class SpatialIndex {
+
+    /**
+     * Erhält jeden gefundenen Lichtblock mit seinem Level
+     */
+    @FunctionalInterface
+    public interface LightVisitor {
+        void visit(long key, int level);
+    }
+
+    /**
+     * Erhält die Entity-ID jedes gefundenen Emitters
+     */
+    @FunctionalInterface
+    public interface EmitterVisitor {
+        void visit(int entityId);
+    }
+
+    // Section-Y-Bereich, den ein Blockschlüssel abbilden kann (10 Bit Y)
+    private static final int MIN_SECTION_Y = -32;
+    private static final int MAX_SECTION_Y = 31;
+
+    private static final class Section {
+        // Blockschlüssel -> Level + 1
+        final LongIntOpenMap lights = new LongIntOpenMap(8);
+        int[] emitters = new int[2];
+        int emitterCount;
+
+        void addEmitter(int entityId) {
+            if (emitterCount == emitters.length) {
+                emitters = Arrays.copyOf(emitters, emitters.length * 2);
+            }
+            emitters[emitterCount++] = entityId;
+        }
+
+        void removeEmitter(int entityId) {
+            for (int i = 0; i < emitterCount; i++) {
+                if (emitters[i] == entityId) {
+                    emitters[i] = emitters[--emitterCount];
+                    return;
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return emitterCount == 0 && lights.isEmpty();
+        }
+    }
+
+    // Welt-ID -> (Section-Schlüssel -> Section)
+    @SuppressWarnings("unchecked")
+    private LongObjectOpenMap<Section>[] worlds = new LongObjectOpenMap[4];
+
+    /**
+     * Section eines Blocks, gepackt wie ein Blockschlüssel aus Section-Koordinaten
+     */
+    public static long sectionKey(long blockKey) {
+        return BlockKeys.pack(BlockKeys.x(blockKey) >> 4, BlockKeys.y(blockKey) >> 4, BlockKeys.z(blockKey) >> 4);
+    }
+
+    private LongObjectOpenMap<Section> sectionsOf(int worldId) {
+        if (worldId >= worlds.length) {
+            worlds = Arrays.copyOf(worlds, Math.max(worldId + 1, worlds.length * 2));
+        }
+        LongObjectOpenMap<Section> sections = worlds[worldId];
+        if (sections == null) {
+            sections = new LongObjectOpenMap<>();
+            worlds[worldId] = sections;
+        }
+        return sections;
+    }
+
+    private Section section(int worldId, long sectionKey) {
+        LongObjectOpenMap<Section> sections = sectionsOf(worldId);
+        Section section = sections.get(sectionKey);
+        if (section == null) {
+            section = new Section();
+            sections.put(sectionKey, section);
+        }
+        return section;
+    }
+
+    private Section existing(int worldId, long sectionKey) {
+        if (worldId < 0 || worldId >= worlds.length || worlds[worldId] == null) return null;
+        return worlds[worldId].get(sectionKey);
+    }
+
+    private void dropIfEmpty(int worldId, long sectionKey, Section section) {
+        if (section.isEmpty()) {
+            worlds[worldId].remove(sectionKey);
+        }
+    }
+
+    /**
+     * Trägt einen Lichtblock ein oder aktualisiert sein Level
+     */
+    public void putLight(int worldId, long key, int level) {
+        section(worldId, sectionKey(key)).lights.put(key, level + 1);
+    }
+
+    public void removeLight(int worldId, long key) {
+        long sectionKey = sectionKey(key);
+        Section section = existing(worldId, sectionKey);
+        if (section == null || section.lights.remove(key) == 0) return;
+        dropIfEmpty(worldId, sectionKey, section);
+    }
+
+    /**
+     * Verschiebt einen Emitter in die Section seiner neuen Lichtposition (nichts zu tun, solange er in derselben bleibt)
+     */
+    public void moveEmitter(EmitterState state, int entityId, int worldId, long blockKey) {
+        if (worldId == EmitterState.NO_WORLD) {
+            removeEmitter(state, entityId);
+            return;
+        }
+        long sectionKey = sectionKey(blockKey);
+        if (state.indexedWorldId == worldId && state.indexedSection == sectionKey) return;
+        removeEmitter(state, entityId);
+        section(worldId, sectionKey).addEmitter(entityId);
+        state.indexedWorldId = worldId;
+        state.indexedSection = sectionKey;
+    }
+
+    public void removeEmitter(EmitterState state, int entityId) {
+        if (state.indexedWorldId == EmitterState.NO_WORLD) return;
+        Section section = existing(state.indexedWorldId, state.indexedSection);
+        if (section != null) {
+            section.removeEmitter(entityId);
+            dropIfEmpty(state.indexedWorldId, state.indexedSection, section);
+        }
+        state.indexedWorldId = EmitterState.NO_WORLD;
+    }
+
+    /**
+     * Besucht alle Lichtblöcke im Umkreis (Kugel) um einen Block
+     *
+     * @return Anzahl der gefundenen Lichtblöcke
+     */
+    public int lightsNear(int worldId, int x, int y, int z, int radius, LightVisitor visitor) {
+        if (worldId < 0 || worldId >= worlds.length || worlds[worldId] == null) return 0;
+        LongObjectOpenMap<Section> sections = worlds[worldId];
+        long radiusSquared = (long) radius * radius;
+        int found = 0;
+        for (int sx = (x - radius) >> 4; sx <= (x + radius) >> 4; sx++) {
+            for (int sz = (z - radius) >> 4; sz <= (z + radius) >> 4; sz++) {
+                for (int sy = Math.max(MIN_SECTION_Y, (y - radius) >> 4); sy <= Math.min(MAX_SECTION_Y, (y + radius) >> 4); sy++) {
+                    Section section = sections.get(BlockKeys.pack(sx, sy, sz));
+                    if (section == null) continue;
+                    LongIntOpenMap lights = section.lights;
+                    for (int slot = 0; slot < lights.capacity(); slot++) {
+                        int value = lights.valueAt(slot);
+                        if (value == 0) continue;
+                        long key = lights.keyAt(slot);
+                        long dx = BlockKeys.x(key) - x;
+                        long dy = BlockKeys.y(key) - y;
+                        long dz = BlockKeys.z(key) - z;
+                        if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+                            found++;
+                            if (visitor != null) {
+                                visitor.visit(key, value - 1);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Besucht alle Emitter in den Sections, die den Umkreis berühren (Genauigkeit: eine Section)
+     *
+     * @return Anzahl der gefundenen Emitter
+     */
+    public int emittersNear(int worldId, int x, int y, int z, int radius, EmitterVisitor visitor) {
+        if (worldId < 0 || worldId >= worlds.length || worlds[worldId] == null) return 0;
+        LongObjectOpenMap<Section> sections = worlds[worldId];
+        int found = 0;
+        for (int sx = (x - radius) >> 4; sx <= (x + radius) >> 4; sx++) {
+            for (int sz = (z - radius) >> 4; sz <= (z + radius) >> 4; sz++) {
+                for (int sy = Math.max(MIN_SECTION_Y, (y - radius) >> 4); sy <= Math.min(MAX_SECTION_Y, (y + radius) >> 4); sy++) {
+                    Section section = sections.get(BlockKeys.pack(sx, sy, sz));
+                    if (section == null) continue;
+                    for (int i = 0; i < section.emitterCount; i++) {
+                        found++;
+                        if (visitor != null) {
+                            visitor.visit(section.emitters[i]);
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Anzahl der belegten Sections über alle Welten
+     */
+    public int sectionCount() {
+        int total = 0;
+        for (LongObjectOpenMap<Section> sections : worlds) {
+            if (sections != null) {
+                total += sections.size();
+            }
+        }
+        return total;
+    }
+
+    public void clear() {
+        for (LongObjectOpenMap<Section> sections : worlds) {
+            if (sections != null) {
+                sections.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+/**
+ * Zeitbudget pro Tick - Arbeit, die nicht mehr hineinpasst, wird in den nächsten Tick verschoben
+ */
+public final class TickBudget {
+
+    private long budgetNanos;
+    private long deadline;
+
+    /**
+     * Setzt das Budget in Millisekunden (0 oder weniger = unbegrenzt)
+     */
+    public void setBudgetMillis(double millis) {
+        this.budgetNanos = millis > 0 ? (long) (millis * 1_000_000L) : 0L;
+    }
+
+    /**
+     * Startet das Budget für den aktuellen Tick
+     */
+    public void start() {
+        deadline = System.nanoTime() + budgetNanos;
+    }
+
+    /**
+     * Prüft ob das Budget des aktuellen Ticks aufgebraucht ist
+     */
+    public boolean exhausted() {
+        return budgetNanos > 0 && System.nanoTime() - deadline >= 0;
+    }
+}
@@ -0,0 +1,124 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Virtueller Lichtmodus: Lichtblöcke werden nur per Block-Change-Paket an Spieler gesendet, die den Chunk sehen.
+ * Die Welt selbst wird nie verändert - keine Lichtberechnung, kein Chunk-Speichern, keine verwaisten Blöcke.
+ * Welcher Spieler welchen Chunk geladen hat, liefert das Chunk-Tracking des Servers; bei jedem erneuten
+ * Senden eines Chunks werden die darin liegenden Lichter über {@link #resend(Player, Chunk)} nachgeschickt.
+ * Synchronisiert, da unter Folia mehrere Region-Threads gleichzeitig schreiben können.
+ */
+public final class VirtualLightView implements LightWriteQueue.ChunkWriter {
+
+    private final LightBlockData blockData;
+    private final WorldIds worldIds;
+    // Welt-ID -> Chunk-Schlüssel -> (Blockschlüssel -> Lichtlevel + 1)
+    private LongObjectOpenMap<LongIntOpenMap>[] lights;
+
+    @SuppressWarnings("unchecked")
+    public VirtualLightView(LightBlockData blockData, WorldIds worldIds) {
+        this.blockData = blockData;
+        this.worldIds = worldIds;
+        this.lights = new LongObjectOpenMap[4];
+    }
+
+    private LongObjectOpenMap<LongIntOpenMap> chunksOf(int worldId) {
+        if (worldId >= lights.length) {
+            lights = Arrays.copyOf(lights, Math.max(worldId + 1, lights.length * 2));
+        }
+        LongObjectOpenMap<LongIntOpenMap> chunks = lights[worldId];
+        if (chunks == null) {
+            chunks = new LongObjectOpenMap<>();
+            lights[worldId] = chunks;
+        }
+        return chunks;
+    }
+
+    @Override
+    public synchronized int write(World world, int chunkX, int chunkZ, long[] keys, int[] levels, int count) {
+        LongObjectOpenMap<LongIntOpenMap> chunks = chunksOf(worldIds.idOf(world));
+        long chunkKey = BlockKeys.chunkKey(chunkX, chunkZ);
+        LongIntOpenMap chunkLights = chunks.get(chunkKey);
+        if (chunkLights == null) {
+            chunkLights = new LongIntOpenMap();
+            chunks.put(chunkKey, chunkLights);
+        }
+
+        // Nur Spieler, denen der Chunk aktuell gesendet wurde, bekommen Pakete
+        Collection<Player> viewers = world.getPlayersSeeingChunk(chunkX, chunkZ);
+        Map<Location, BlockData> changes = viewers.isEmpty() ? null : new HashMap<>();
+
+        for (int i = 0; i < count; i++) {
+            long key = keys[i];
+            if (levels[i] == LightWriteQueue.REMOVE) {
+                if (chunkLights.remove(key) != 0 && changes != null) {
+                    int x = BlockKeys.x(key);
+                    int y = BlockKeys.y(key);
+                    int z = BlockKeys.z(key);
+                    // Echten Block wiederherstellen
+                    changes.put(new Location(world, x, y, z), world.getBlockData(x, y, z));
+                }
+            } else {
+                chunkLights.put(key, levels[i] + 1);
+                if (changes != null) {
+                    addLight(world, key, levels[i], changes);
+                }
+            }
+        }
+
+        if (chunkLights.isEmpty()) {
+            chunks.remove(chunkKey);
+        }
+        if (changes == null || changes.isEmpty()) {
+            return 0;
+        }
+        for (Player viewer : viewers) {
+            viewer.sendMultiBlockChange(changes);
+        }
+        return changes.size();
+    }
+
+    /**
+     * Schickt alle virtuellen Lichter eines gerade gesendeten Chunks an den Spieler nach
+     */
+    public synchronized void resend(Player player, Chunk chunk) {
+        LongObjectOpenMap<LongIntOpenMap> chunks = chunksOf(worldIds.idOf(chunk.getWorld()));
+        LongIntOpenMap chunkLights = chunks.get(BlockKeys.chunkKey(chunk.getX(), chunk.getZ()));
+        if (chunkLights == null || chunkLights.isEmpty()) return;
+
+        Map<Location, BlockData> changes = new HashMap<>();
+        for (int slot = 0; slot < chunkLights.capacity(); slot++) {
+            int value = chunkLights.valueAt(slot);
+            if (value != 0) {
+                addLight(chunk.getWorld(), chunkLights.keyAt(slot), value - 1, changes);
+            }
+        }
+        if (!changes.isEmpty()) {
+            player.sendMultiBlockChange(changes);
+        }
+    }
+
+    /**
+     * Fügt ein virtuelles Licht hinzu, sofern der echte Block Luft ist (kein Licht in festen Blöcken)
+     */
+    private void addLight(World world, long key, int level, Map<Location, BlockData> changes) {
+        int x = BlockKeys.x(key);
+        int y = BlockKeys.y(key);
+        int z = BlockKeys.z(key);
+        Material type = world.getType(x, y, z);
+        if (type == Material.AIR || type == Material.LIGHT) {
+            changes.put(new Location(world, x, y, z), blockData.light(level));
+        }
+    }
+}
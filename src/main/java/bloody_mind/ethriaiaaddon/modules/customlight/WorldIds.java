@@ -0,0 +1,52 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.bukkit.World;
+
+import java.util.Arrays;
+
+/**
+ * Vergibt kleine int-IDs für Welten, damit Positionen ohne World-Referenz verglichen werden können.
+ * Lesen ist lock-frei (unveränderliches Array), nur das Hinzufügen einer neuen Welt wird synchronisiert.
+ */
+public final class WorldIds {
+
+    private volatile World[] worlds = new World[0];
+
+    /**
+     * Gibt die ID der Welt zurück und vergibt bei Bedarf eine neue (allokationsfrei für bekannte Welten)
+     */
+    public int idOf(World world) {
+        World[] known = worlds;
+        for (int i = 0; i < known.length; i++) {
+            if (known[i] == world) {
+                return i;
+            }
+        }
+        return register(world);
+    }
+
+    private synchronized int register(World world) {
+        World[] known = worlds;
+        for (int i = 0; i < known.length; i++) {
+            if (known[i] == world) {
+                return i;
+            }
+        }
+        World[] updated = Arrays.copyOf(known, known.length + 1);
+        updated[known.length] = world;
+        worlds = updated;
+        return known.length;
+    }
+
+    /**
+     * Gibt die Welt zu einer ID zurück
+     */
+    public World get(int id) {
+        World[] known = worlds;
+        return id >= 0 && id < known.length ? known[id] : null;
+    }
+
+    public synchronized void clear() {
+        worlds = new World[0];
+    }
+}
@@ -0,0 +1,67 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+/**
+ * Schreibt Lichtblöcke als echte LIGHT-Blöcke in die Welt.
+ * Nicht geladene Chunks werden nie geladen: Setzen und Entfernen dort werden bis zum nächsten Laden des Chunks vorgemerkt.
+ */
+public final class WorldLightWriter implements LightWriteQueue.ChunkWriter {
+
+    private final LightBlockData blockData;
+    private final LightJournal journal;
+    private final OrphanLightIndex deferredRemovals;
+    private final OrphanLightIndex deferredPlacements;
+
+    /**
+     * @param deferredRemovals   Lichtblöcke, die beim Laden ihres Chunks entfernt werden
+     * @param deferredPlacements Positionen, die beim Laden ihres Chunks neu gesetzt werden, falls sie noch belegt sind
+     */
+    public WorldLightWriter(LightBlockData blockData, LightJournal journal, OrphanLightIndex deferredRemovals,
+                            OrphanLightIndex deferredPlacements) {
+        this.blockData = blockData;
+        this.journal = journal;
+        this.deferredRemovals = deferredRemovals;
+        this.deferredPlacements = deferredPlacements;
+    }
+
+    @Override
+    public int write(World world, int chunkX, int chunkZ, long[] keys, int[] levels, int count) {
+        if (!world.isChunkLoaded(chunkX, chunkZ)) {
+            // Die Registry hält die Lichter weiter für gesetzt - beides wird im ChunkLoadEvent nachgeholt
+            for (int i = 0; i < count; i++) {
+                if (levels[i] != LightWriteQueue.REMOVE) {
+                    deferredPlacements.add(world.getUID(), keys[i]);
+                } else if (journal.isLive(world, keys[i])) {
+                    deferredRemovals.add(world.getUID(), keys[i]);
+                }
+            }
+            return 0;
+        }
+
+        Chunk chunk = world.getChunkAt(chunkX, chunkZ);
+        int writes = 0;
+        for (int i = 0; i < count; i++) {
+            long key = keys[i];
+            Block block = chunk.getBlock(BlockKeys.x(key) & 15, BlockKeys.y(key), BlockKeys.z(key) & 15);
+            Material type = block.getType();
+            if (levels[i] == LightWriteQueue.REMOVE) {
+                if (type == Material.LIGHT) {
+                    block.setBlockData(blockData.air(), false);
+                    writes++;
+                }
+                // Auch vermerken, wenn der Block inzwischen ersetzt wurde - er gehört dann nicht mehr uns
+                journal.recordRemove(world, key);
+            } else if (type == Material.AIR || type == Material.LIGHT) {
+                // Vor dem Setzen vermerken, damit ein Absturz danach keinen Block verwaist zurücklässt
+                journal.recordPlace(world, key);
+                block.setBlockData(blockData.light(levels[i]), false);
+                writes++;
+            }
+        }
+        return writes;
+    }
+}
@@ -0,0 +1,94 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Hot Path des Licht-Tasks: ein Tick ohne Bewegung darf nichts allokieren
+ */
+class LightEngineTest {
+
+    private static final int PLAYERS = 100;
+    private static final int GLOWING_MODEL = 10001;
+    private static final int FIRST_ENTITY_ID = 1000;
+
+    private final World world = standIn(World.class, 0);
+    private final LightWriteQueue.ChunkWriter writer = (world, chunkX, chunkZ, keys, levels, count) -> count;
+    private LightEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        // Alle Spieler stehen still, verteilt auf einige Chunks
+        engine = new LightEngine(state -> {
+            int i = state.entityId - FIRST_ENTITY_ID;
+            state.scratch.setX(i * 7 + 0.5);
+            state.scratch.setY(64);
+            state.scratch.setZ(i * 3 + 0.5);
+            return world;
+        }, new LightEngine.EmitterListener() {
+            @Override
+            public void added(EmitterState state) {
+            }
+
+            @Override
+            public void removed(EmitterState state) {
+            }
+        }, new LongAdder(), new LongAdder());
+
+        ItemLights lights = new ItemLights(Map.of(GLOWING_MODEL, 15));
+        int[] fingerprints = new int[EmitterSource.COUNT];
+        fingerprints[EmitterSource.HEAD.ordinal()] = GLOWING_MODEL;
+        for (int i = 0; i < PLAYERS; i++) {
+            engine.updateSources(standIn(Entity.class, FIRST_ENTITY_ID + i), EmitterSource.HEAD.bit(), fingerprints, lights);
+        }
+    }
+
+    @Test
+    void standingEmittersPlaceTheirLightOnce() {
+        int written = 0;
+        for (int tick = 0; tick < 10; tick++) {
+            written += engine.tick(writer);
+        }
+        assertEquals(PLAYERS, written);
+        assertEquals(PLAYERS, engine.lightCount());
+        assertEquals(0, engine.tick(writer));
+    }
+
+    @Test
+    void tickWithoutMovementAllocatesNothing() {
+        // Aufwärmen, bis der JIT den Hot Path übersetzt hat (Escape-Analyse)
+        for (int tick = 0; tick < 20_000; tick++) {
+            engine.tick(writer);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int tick = 0; tick < 1_000; tick++) {
+            engine.tick(writer);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertEquals(0, allocated, "Allokierte Bytes in 1000 Ticks ohne Bewegung");
+    }
+
+    /**
+     * Stand-in für Welt und Entities: nur Identität und Entity-ID
+     */
+    private static <T> T standIn(Class<T> type, int entityId) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "getEntityId" -> entityId;
+                    default -> null;
+                }));
+    }
+}
@@ -0,0 +1,260 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.bukkit.World;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round-Trip des binären Journal-Formats: Schreiben, Schließen bzw. Absturz, erneutes Öffnen
+ */
+class LightJournalTest {
+
+    private Path dir;
+    private File file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("light-journal");
+        file = dir.resolve("customlight.journal").toFile();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static World world(String name) {
+        UUID uid = UUID.nameUUIDFromBytes(name.getBytes());
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[]{World.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getUID" -> uid;
+                    case "getName", "toString" -> name;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Alle verwaisten Blöcke einer Welt
+     */
+    private static Set<Long> orphans(OrphanLightIndex index, World world) {
+        Set<Long> keys = new HashSet<>();
+        for (long chunkKey : index.chunkKeys(world.getUID())) {
+            LongIntOpenMap chunk = index.take(world.getUID(), BlockKeys.chunkX(chunkKey), BlockKeys.chunkZ(chunkKey));
+            for (int slot = 0; slot < chunk.capacity(); slot++) {
+                if (chunk.valueAt(slot) != 0) {
+                    keys.add(chunk.keyAt(slot));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private OrphanLightIndex reopen() throws IOException {
+        LightJournal journal = new LightJournal(file);
+        OrphanLightIndex index = journal.open();
+        journal.close();
+        return index;
+    }
+
+    @Test
+    void placeAndRemoveRoundTrip() throws IOException {
+        World world = world("world");
+        LightJournal journal = new LightJournal(file);
+        assertTrue(journal.open().isEmpty());
+
+        long a = BlockKeys.pack(1, 64, 1);
+        long b = BlockKeys.pack(-40, -10, 300);
+        long c = BlockKeys.pack(17, 70, -17);
+        journal.recordPlace(world, a);
+        journal.recordPlace(world, b);
+        journal.recordPlace(world, c);
+        journal.recordRemove(world, b);
+        journal.close();
+
+        OrphanLightIndex index = reopen();
+        assertEquals(2, index.size());
+        assertEquals(Set.of(a, c), orphans(index, world));
+    }
+
+    @Test
+    void compactionKeepsLiveBlocksAndLaterRecords() throws IOException {
+        World world = world("world");
+        World nether = world("world_nether");
+        LightJournal journal = new LightJournal(file);
+        journal.open();
+
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            long key = BlockKeys.pack(i, 64, i);
+            journal.recordPlace(world, key);
+            if (i % 3 == 0) {
+                journal.recordRemove(world, key);
+            } else {
+                expected.add(key);
+            }
+        }
+        journal.compact();
+        // Nach der Kompaktierung angehängte Einträge, auch für eine neue Welt
+        long late = BlockKeys.pack(5000, 10, 5000);
+        journal.recordPlace(world, late);
+        expected.add(late);
+        journal.recordRemove(world, BlockKeys.pack(1, 64, 1));
+        expected.remove(BlockKeys.pack(1, 64, 1));
+        long netherKey = BlockKeys.pack(8, 40, 8);
+        journal.recordPlace(nether, netherKey);
+        journal.compact();
+        journal.close();
+
+        OrphanLightIndex index = reopen();
+        assertEquals(expected, orphans(index, world));
+        assertEquals(Set.of(netherKey), orphans(index, nether));
+    }
+
+    @Test
+    void crashWithoutCloseKeepsAppendedRecords() throws IOException {
+        World world = world("world");
+        LightJournal journal = new LightJournal(file);
+        journal.open();
+        long a = BlockKeys.pack(3, 80, 3);
+        long b = BlockKeys.pack(4, 80, 4);
+        journal.recordPlace(world, a);
+        journal.recordPlace(world, b);
+        journal.recordRemove(world, a);
+        // Kein close(): Stand wie nach einem Absturz (Inhalt liegt im Mapping bzw. Page Cache)
+        byte[] crashed = Files.readAllBytes(file.toPath());
+        journal.close();
+        Files.write(file.toPath(), crashed);
+
+        assertEquals(Set.of(b), orphans(reopen(), world));
+    }
+
+    @Test
+    void truncatedTailIsIgnored() throws IOException {
+        World world = world("world");
+        LightJournal journal = new LightJournal(file);
+        journal.open();
+        long a = BlockKeys.pack(1, 1, 1);
+        long b = BlockKeys.pack(2, 2, 2);
+        long c = BlockKeys.pack(3, 3, 3);
+        journal.recordPlace(world, a);
+        journal.recordPlace(world, b);
+        journal.recordPlace(world, c);
+        journal.close();
+
+        // Header (8) + WORLD (21) + zwei PLACE (je 13), der dritte PLACE-Eintrag endet mitten im Blockschlüssel
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, 8 + 21 + 2 * 13 + 6));
+
+        assertEquals(2, orphans(reopen(), world).size());
+    }
+
+    @Test
+    void worldIdGapAfterCompaction() throws IOException {
+        World overworld = world("world");
+        World nether = world("world_nether");
+        World end = world("world_the_end");
+        LightJournal journal = new LightJournal(file);
+        journal.open();
+
+        long overworldKey = BlockKeys.pack(0, 64, 0);
+        long netherKey = BlockKeys.pack(10, 40, 10);
+        journal.recordPlace(overworld, overworldKey);
+        journal.recordPlace(nether, netherKey);
+        // Overworld vollständig bereinigt, im Nether bleibt ein Block stehen: die Datei enthält nur noch Welt-ID 1
+        journal.recordRemove(overworld, overworldKey);
+        journal.close();
+
+        journal = new LightJournal(file);
+        OrphanLightIndex index = journal.open();
+        assertEquals(Set.of(netherKey), orphans(index, nether));
+        assertTrue(orphans(index, overworld).isEmpty());
+
+        // Die freie ID 0 wird wiederverwendet, ohne die Blöcke der anderen Welt zu vermischen
+        long endKey = BlockKeys.pack(100, 50, 100);
+        journal.recordPlace(end, endKey);
+        journal.recordPlace(nether, netherKey);
+        journal.compact();
+        journal.close();
+
+        index = reopen();
+        assertEquals(Set.of(netherKey), orphans(index, nether));
+        assertEquals(Set.of(endKey), orphans(index, end));
+    }
+
+    @Test
+    void compactionConcurrentWithGrowingAppends() throws Exception {
+        World world = world("world");
+        LightJournal journal = new LightJournal(file);
+        journal.open();
+
+        // Kompaktiert ständig auf einem eigenen Thread, wie der Async-Task des Moduls
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread compactor = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    journal.compact();
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        compactor.start();
+
+        // Viele kurzlebige Blöcke füllen das Mapping immer wieder, das Anhängen schreibt das Journal dann neu
+        Set<Long> expected = new HashSet<>();
+        try {
+            for (int i = 0; i < 1_000_000; i++) {
+                long key = BlockKeys.pack(i % 4096, i / 4096 % 256, i / (4096 * 256));
+                journal.recordPlace(world, key);
+                if (i % 100 != 0) {
+                    journal.recordRemove(world, key);
+                } else {
+                    expected.add(key);
+                }
+            }
+            // Schließen, während der Kompaktierer noch läuft: close() wartet auf ihn
+            journal.close();
+        } finally {
+            done.set(true);
+            compactor.join();
+        }
+
+        assertNull(failure.get());
+        assertTrue(!new File(file.getPath() + ".tmp").exists() && !new File(file.getPath() + ".compact.tmp").exists());
+        assertEquals(expected, orphans(reopen(), world));
+    }
+
+    @Test
+    void unreadableJournalStartsEmpty() throws IOException {
+        Files.write(file.toPath(), new byte[]{1, 2, 3});
+        LightJournal journal = new LightJournal(file);
+        assertTrue(journal.open().isEmpty());
+        journal.recordPlace(world("world"), BlockKeys.pack(1, 2, 3));
+        journal.close();
+        assertEquals(1, reopen().size());
+    }
+}
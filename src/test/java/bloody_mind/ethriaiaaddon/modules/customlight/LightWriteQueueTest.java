@@ -0,0 +1,90 @@
+package bloody_mind.ethriaiaaddon.modules.customlight;
+
+import org.bukkit.World;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Zusammenfassen der Änderungen einer Position vor dem Schreiben
+ */
+class LightWriteQueueTest {
+
+    private final WorldIds worldIds = new WorldIds();
+    private int worldId;
+    private LightWriteQueue queue;
+    // Blockschlüssel -> zuletzt geschriebenes Level (REMOVE beim Entfernen)
+    private final Map<Long, Integer> written = new LinkedHashMap<>();
+    private final LightWriteQueue.ChunkWriter writer = (world, chunkX, chunkZ, keys, levels, count) -> {
+        for (int i = 0; i < count; i++) {
+            written.put(keys[i], levels[i]);
+        }
+        return count;
+    };
+
+    @BeforeEach
+    void setUp() {
+        World world = (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[]{World.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+        worldId = worldIds.idOf(world);
+        queue = new LightWriteQueue();
+    }
+
+    @Test
+    void removeAfterUnwrittenPlaceDropsBoth() {
+        long key = BlockKeys.pack(1, 64, 1);
+        queue.place(worldId, key, 15);
+        queue.remove(worldId, key);
+        assertEquals(0, queue.size());
+
+        queue.flush(worldIds, writer);
+        assertTrue(written.isEmpty());
+    }
+
+    @Test
+    void removeAfterWrittenPlaceIsWritten() {
+        long key = BlockKeys.pack(1, 64, 1);
+        queue.place(worldId, key, 15);
+        queue.flush(worldIds, writer);
+        queue.remove(worldId, key);
+        queue.flush(worldIds, writer);
+        assertEquals(LightWriteQueue.REMOVE, (int) written.get(key));
+    }
+
+    @Test
+    void placeOverPendingRemoveStillRemovesLater() {
+        long key = BlockKeys.pack(-3, 70, 40);
+        queue.place(worldId, key, 10);
+        queue.flush(worldIds, writer);
+
+        // Der Block steht in der Welt: Entfernen, neu setzen und wieder entfernen muss ihn entfernen
+        queue.remove(worldId, key);
+        queue.place(worldId, key, 12);
+        queue.refresh(worldId, key, 13);
+        assertEquals(1, queue.size());
+        queue.remove(worldId, key);
+        queue.flush(worldIds, writer);
+        assertEquals(LightWriteQueue.REMOVE, (int) written.get(key));
+    }
+
+    @Test
+    void refreshKeepsPlacePriorityAndLatestLevel() {
+        long key = BlockKeys.pack(5, 64, 5);
+        queue.remove(worldId, key);
+        queue.place(worldId, key, 4);
+        queue.refresh(worldId, key, 9);
+        queue.flush(worldIds, writer);
+        assertEquals(9, (int) written.get(key));
+        assertEquals(0, queue.size());
+    }
+}